@@ -1,12 +1,15 @@
 package ru.practicum.ewm.compilation;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.ewm.compilation.model.Compilation;
 
-import java.util.List;
-
 public interface CompilationRepository extends JpaRepository<Compilation,Long> {
 
-    List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+    Window<Compilation> findAllByPinned(Boolean pinned, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<Compilation> findAllBy(ScrollPosition position, Limit limit, Sort sort);
 }
@@ -4,9 +4,11 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.compilation.dto.CompilationDto;
 import ru.practicum.ewm.compilation.service.CompilationService;
+import ru.practicum.ewm.pagination.CursorPage;
 
 import java.util.List;
 
@@ -18,14 +20,16 @@ public class CompilationPublicController {
     private final CompilationService compilationService;
 
     @GetMapping
-    public List<CompilationDto> getAllCompilations(
+    public ResponseEntity<List<CompilationDto>> getAllCompilations(
             @RequestParam(required = false) Boolean pinned,
             @RequestParam(defaultValue = "0")@PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10")@Positive Integer size) {
-        log.info("GET запрос на получение подборок событий. pinned={}, from={}, size={}", pinned, from, size);
-        List<CompilationDto> compilations = compilationService.getAllCompilations(from, size, pinned);
-        log.info("Возвращен список подборок событий: {}", compilations);
-        return compilations;
+            @RequestParam(defaultValue = "10")@Positive Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.info("GET запрос на получение подборок событий. pinned={}, from={}, size={}, cursor={}",
+                pinned, from, size, cursor);
+        CursorPage<CompilationDto> compilations = compilationService.getAllCompilations(from, size, cursor, pinned);
+        log.info("Возвращен список подборок событий: {}", compilations.items());
+        return compilations.toResponseEntity();
     }
 
     @GetMapping("/{compId}")
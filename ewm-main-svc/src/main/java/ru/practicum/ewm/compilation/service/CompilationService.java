@@ -3,8 +3,7 @@ package ru.practicum.ewm.compilation.service;
 import ru.practicum.ewm.compilation.dto.CompilationDto;
 import ru.practicum.ewm.compilation.dto.NewCompilationDto;
 import ru.practicum.ewm.compilation.dto.UpdateCompilationRequest;
-
-import java.util.List;
+import ru.practicum.ewm.pagination.CursorPage;
 
 public interface CompilationService {
     CompilationDto create(NewCompilationDto newCompilationDto);
@@ -13,7 +12,7 @@ public interface CompilationService {
 
     void delete(Long id);
 
-    List<CompilationDto> getAllCompilations(Integer from, Integer size, Boolean pinned);
+    CursorPage<CompilationDto> getAllCompilations(Integer from, Integer size, String cursor, Boolean pinned);
 
     CompilationDto findCompilationById(Long compId);
 }
@@ -4,7 +4,10 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.compilation.CompilationRepository;
@@ -18,6 +21,8 @@ import ru.practicum.ewm.event.dto.EventShortDto;
 import ru.practicum.ewm.event.mapper.EventMapper;
 import ru.practicum.ewm.event.model.Event;
 import ru.practicum.ewm.exception.NotFoundException;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursors;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -66,7 +71,7 @@ public class CompilationServiceImpl implements CompilationService {
 
         compilation.setTitle(Optional.ofNullable(updateCompilationRequest.getTitle()).orElse(compilation.getTitle()));
         Compilation updatedCompilation = compilationRepository.save(compilation);
-        log.info("Подборка обновлена: {}", compilation);
+        log.info("Подборка обновлена: id={}, title={}", compilation.getId(), compilation.getTitle());
         List<EventShortDto> eventShortDtos = updatedCompilation.getEvents().stream()
                 .map(EventMapper::toEventShortDto)
                 .collect(Collectors.toList());
@@ -82,29 +87,29 @@ public class CompilationServiceImpl implements CompilationService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<CompilationDto> getAllCompilations(Integer from, Integer size, Boolean pinned) {
-        log.info("Получение всех подборок с from={}, size={}, pinned={}", from, size, pinned);
-        PageRequest pageRequest = PageRequest.of(from, size);
-        List<Compilation> compilations;
+    public CursorPage<CompilationDto> getAllCompilations(Integer from, Integer size, String cursor, Boolean pinned) {
+        log.info("Получение всех подборок с from={}, size={}, cursor={}, pinned={}", from, size, cursor, pinned);
+        Sort sort = Sort.by(Sort.Direction.ASC, "id");
+        ScrollPosition position = PageCursors.position(cursor, from, sort);
+        Window<Compilation> compilations;
         if (pinned != null) {
             log.info("Получение всех подборок с pinned: {}", pinned);
-            compilations = compilationRepository.findAllByPinned(pinned, pageRequest);
-            log.info("Получены подборки с pinned={}: {}", pinned, compilations);
+            compilations = compilationRepository.findAllByPinned(pinned, position, Limit.of(size), sort);
+            log.info("Получено подборок с pinned={}: {}", pinned, compilations.size());
         } else {
             log.info("Получение всех подборок без фильтрации по pinned");
-            compilations = compilationRepository.findAll(pageRequest).getContent();
-            log.info("Получены все подборки: {}", compilations);
+            compilations = compilationRepository.findAllBy(position, Limit.of(size), sort);
+            log.info("Получено подборок: {}", compilations.size());
 
         }
-        return compilations.stream()
+        return PageCursors.page(compilations, sort)
                 .map(compilation -> {
                     List<EventShortDto> eventShortDtos = compilation.getEvents().stream()
                             .map(EventMapper::toEventShortDto)
                             .collect(Collectors.toList());
 
                     return CompilationMapper.toCompilationDto(compilation, eventShortDtos);
-                })
-                .collect(Collectors.toList());
+                });
     }
 
     @Transactional(readOnly = true)
@@ -114,7 +119,7 @@ public class CompilationServiceImpl implements CompilationService {
         Compilation compilation = compilationRepository.findById(compId)
                 .orElseThrow(() -> new NotFoundException("Подборка c ID " + compId + " не найдена"));
 
-        log.info("Подборка найдена: {}", compilation);
+        log.info("Подборка найдена: id={}, title={}", compilation.getId(), compilation.getTitle());
 
         List<EventShortDto> eventShortDtos = compilation.getEvents().stream()
                 .map(EventMapper::toEventShortDto)
@@ -0,0 +1,33 @@
+package ru.practicum.ewm.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.event.search.EventTextSearch;
+import ru.practicum.ewm.event.search.InMemoryEventTextSearch;
+import ru.practicum.ewm.event.search.PostgresEventTextSearch;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+@Configuration
+public class TextSearchConfig {
+
+    @Bean
+    public EventTextSearch eventTextSearch(DataSource dataSource, EventRepository eventRepository,
+                                           @Value("${events.search.index-batch-size:500}") int batchSize) {
+        String product;
+        try {
+            product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Не удалось определить тип базы данных", e);
+        }
+        if ("PostgreSQL".equalsIgnoreCase(product)) {
+            return new PostgresEventTextSearch();
+        }
+        return new InMemoryEventTextSearch(eventRepository, batchSize);
+    }
+}
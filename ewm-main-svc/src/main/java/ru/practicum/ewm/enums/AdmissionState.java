@@ -0,0 +1,7 @@
+package ru.practicum.ewm.enums;
+
+public enum AdmissionState {
+    QUEUED,
+    ADMITTED,
+    REJECTED
+}
@@ -1,45 +1,66 @@
 package ru.practicum.ewm.event;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.event.model.Event;
 import ru.practicum.ewm.enums.EventState;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface EventRepository extends JpaRepository<Event, Long> {
-    @Query("""
-                SELECT e
-                FROM Event AS e
-                WHERE (?1 IS NULL or e.initiator.id IN ?1)
-                    AND (?2 IS NULL or e.state IN ?2)
-                    AND (?3 IS NULL or e.category.id in ?3)
-                    AND (CAST(?4 AS timestamp) IS NULL or e.eventDate >= ?4)
-                    AND (CAST(?5 AS timestamp) IS NULL or e.eventDate < ?5)
-            """)
-    List<Event> findAllByAdmin(
-            List<Long> users,
-            List<EventState> states,
-            List<Long> categories,
-            LocalDateTime rangeStart,
-            LocalDateTime rangeEnd,
-            Pageable pageable
-    );
-
-    List<Event> findAllByInitiatorId(Long initiatorId, Pageable pageable);
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    Window<Event> findByInitiatorId(Long initiatorId, ScrollPosition position, Limit limit, Sort sort);
 
+    @EntityGraph(attributePaths = {"category", "initiator"})
     List<Event> findAllByIdIn(List<Long> eventIds);
 
     boolean existsByCategoryId(Long id);
 
     Optional<Event> findByIdAndInitiatorId(Long eventId, Long userId);
 
-    Page<Event> findAll(Specification<Event> spec, Pageable pageable);
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    Window<Event> findByInitiatorIdIn(List<Long> initiatorIds, ScrollPosition position, Limit limit, Sort sort);
+
+    List<Event> findByStateAndIdGreaterThanOrderByIdAsc(EventState state, Long id, Limit limit);
+
+    List<Event> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Занимает места одним UPDATE: условие лимита перепроверяется под блокировкой строки,
+     * поэтому параллельные заявки не превышают participantLimit. Пока лист ожидания не пуст, освободившиеся места
+     * достаются ему, а не новым заявкам. Возвращает 0, если мест не хватает.
+     */
+    @Modifying
+    @Query("""
+                UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + :seats
+                WHERE e.id = :eventId
+                    AND (e.participantLimit = 0 OR e.confirmedRequests + :seats <= e.participantLimit)
+                    AND NOT EXISTS (
+                        SELECT r.id FROM EventRequest r
+                        WHERE r.event.id = :eventId AND r.status = ru.practicum.ewm.enums.RequestStatus.WAITLISTED
+                    )
+            """)
+    int reserveSeats(@Param("eventId") Long eventId, @Param("seats") long seats);
+
+    @Query("SELECT e.highDemand FROM Event e WHERE e.id = :eventId")
+    Optional<Boolean> findHighDemandById(@Param("eventId") Long eventId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Event e WHERE e.id = :eventId")
+    Optional<Event> findByIdForUpdate(@Param("eventId") Long eventId);
 
-    List<Event> findByInitiatorIdIn(List<Long> initiatorIds, Pageable pageable);
-}
\ No newline at end of file
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + :delta WHERE e.id = :eventId")
+    int addConfirmedRequests(@Param("eventId") Long eventId, @Param("delta") long delta);
+}
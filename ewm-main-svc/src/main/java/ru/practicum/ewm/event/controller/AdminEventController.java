@@ -4,13 +4,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.event.dto.EventFullDto;
 import ru.practicum.ewm.event.dto.EventSearchParams;
 import ru.practicum.ewm.event.dto.UpdateEventAdminRequest;
 import ru.practicum.ewm.event.service.EventService;
+import ru.practicum.ewm.pagination.CursorPage;
 
-import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -20,12 +22,12 @@ public class AdminEventController {
     private final EventService eventService;
 
     @GetMapping
-    public Collection<EventFullDto> findAllByAdmin(@Valid EventSearchParams searchEventParams,
-                                                   HttpServletRequest request) {
+    public ResponseEntity<List<EventFullDto>> findAllByAdmin(@Valid EventSearchParams searchEventParams,
+                                                             HttpServletRequest request) {
         log.info("GET запрос на получения событий с фильтром");
-        Collection<EventFullDto> events = eventService.findAllByAdmin(searchEventParams, request);
-        log.info("Отправлен ответ GET /admin/events с телом: {}", events);
-        return events;
+        CursorPage<EventFullDto> events = eventService.findAllByAdmin(searchEventParams, request);
+        log.info("Отправлен ответ GET /admin/events с телом: {}", events.items());
+        return events.toResponseEntity();
     }
 
     @PatchMapping("/{eventId}")
@@ -7,14 +7,16 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.event.dto.EventFullDto;
 import ru.practicum.ewm.event.dto.EventShortDto;
 import ru.practicum.ewm.event.dto.NewEventDto;
 import ru.practicum.ewm.event.dto.UpdateEventUserRequest;
 import ru.practicum.ewm.event.service.EventService;
+import ru.practicum.ewm.pagination.CursorPage;
 
-import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -48,14 +50,15 @@ public class PrivateEventController {
     }
 
     @GetMapping
-    public Collection<EventShortDto> findAllByPrivate(
+    public ResponseEntity<List<EventShortDto>> findAllByPrivate(
             @PathVariable Long userId,
             @RequestParam(required = false, defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(required = false, defaultValue = "10") @Positive Integer size, HttpServletRequest request
+            @RequestParam(required = false, defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String cursor, HttpServletRequest request
     ) {
-        log.info("GET запрос /users/{}/events?from={}&size={}", userId, from, size);
-        Collection<EventShortDto> events = eventService.findAllByPrivate(userId, from, size,request);
-        log.info("Отправлен ответ GET /users/{}/events?from={}&size={} с телом: {}", userId, from, size, events);
-        return events;
+        log.info("GET запрос /users/{}/events?from={}&size={}&cursor={}", userId, from, size, cursor);
+        CursorPage<EventShortDto> events = eventService.findAllByPrivate(userId, from, size, cursor, request);
+        log.info("Отправлен ответ GET /users/{}/events?from={}&size={} с телом: {}", userId, from, size, events.items());
+        return events.toResponseEntity();
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,8 +13,9 @@ import ru.practicum.ewm.event.dto.EventFullDto;
 import ru.practicum.ewm.event.dto.EventSearchParams;
 import ru.practicum.ewm.event.dto.EventShortDto;
 import ru.practicum.ewm.event.service.EventService;
+import ru.practicum.ewm.pagination.CursorPage;
 
-import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -24,12 +26,12 @@ public class PublicEventController {
     private final EventService eventService;
 
     @GetMapping
-    public Collection<EventShortDto> findAllByPublic(@Valid EventSearchParams searchEventParams,
-                                                     HttpServletRequest request) {
+    public ResponseEntity<List<EventShortDto>> findAllByPublic(@Valid EventSearchParams searchEventParams,
+                                                               HttpServletRequest request) {
         log.info("GET запрос на получения событий с фильтром");
-        Collection<EventShortDto> events = eventService.findAllByPublic(searchEventParams, request);
-        log.info("Отправлен ответ GET /events с телом: {}", events);
-        return events;
+        CursorPage<EventShortDto> events = eventService.findAllByPublic(searchEventParams, request);
+        log.info("Отправлен ответ GET /events с телом: {}", events.items());
+        return events.toResponseEntity();
     }
 
     @GetMapping("/{eventId}")
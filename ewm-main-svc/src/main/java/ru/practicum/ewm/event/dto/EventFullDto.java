@@ -26,6 +26,7 @@ public class EventFullDto {
     Boolean paid;
     Integer participantLimit;
     Boolean requestModeration;
+    Boolean highDemand;
     EventState state;
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     LocalDateTime createdOn;
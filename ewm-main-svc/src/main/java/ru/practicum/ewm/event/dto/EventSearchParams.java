@@ -25,10 +25,22 @@ public class EventSearchParams {
     LocalDateTime rangeEnd;
     Boolean onlyAvailable;
     String sort;
+    String direction;
     @PositiveOrZero
     int from = 0;
     @Positive
     int size = 10;
+    String cursor;
+    Double lat;
+    Double lon;
+    /**
+     * Радиус поиска вокруг (lat, lon) в километрах.
+     */
+    Double radius;
+    /**
+     * Прямоугольник minLon,minLat,maxLon,maxLat.
+     */
+    List<Double> bbox;
     List<Long> users;
     List<EventState> states;
 }
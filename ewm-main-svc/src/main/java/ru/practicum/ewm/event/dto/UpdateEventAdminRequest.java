@@ -31,6 +31,10 @@ public class UpdateEventAdminRequest {
     @Min(value = 0, message = "Лимит участников не может быть отрицательным")
     Integer participantLimit;
     Boolean requestModeration;
+    /**
+     * Заявки на событие принимаются через очередь с ограничением скорости.
+     */
+    Boolean highDemand;
     StateAction stateAction;
 
     @Size(min = 3, max = 120, message = "Длина аннотации должна не больше 120 символов и не меньше 3")
@@ -39,8 +39,11 @@ public class EventMapper {
                 .participantLimit(event.getParticipantLimit())
                 .publishedOn(event.getPublishedOn())
                 .requestModeration(event.getRequestModeration())
+                .highDemand(event.getHighDemand())
                 .state(event.getState())
                 .title(event.getTitle())
+                .confirmedRequests(event.getConfirmedRequests())
+                .views(event.getViews())
                 .build();
     }
 
@@ -53,6 +56,8 @@ public class EventMapper {
                 .initiator(UserMapper.toUserShortDto(event.getInitiator()))
                 .paid(event.getPaid())
                 .title(event.getTitle())
+                .confirmedRequests(event.getConfirmedRequests())
+                .views(event.getViews())
                 .build();
     }
 }
\ No newline at end of file
@@ -22,14 +22,20 @@ public class Event {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
 
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id")
     Location location;
 
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "initiator_id")
     User initiator;
 
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     Category category;
@@ -51,6 +57,9 @@ public class Event {
     Integer participantLimit;
     @Column(name = "request_moderation")
     Boolean requestModeration;
+    @Builder.Default
+    @Column(name = "high_demand")
+    Boolean highDemand = false;
 
     @Enumerated(EnumType.STRING)
     EventState state;
@@ -60,4 +69,13 @@ public class Event {
 
     @Column(name = "published_on")
     LocalDateTime publishedOn;
+
+    // Счётчики меняются только атомарными UPDATE, поэтому сохранение события их не перезаписывает
+    @Builder.Default
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
+    Long confirmedRequests = 0L;
+
+    @Builder.Default
+    @Column(insertable = false, updatable = false)
+    Long views = 0L;
 }
\ No newline at end of file
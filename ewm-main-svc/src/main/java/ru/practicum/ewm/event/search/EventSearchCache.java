@@ -0,0 +1,132 @@
+package ru.practicum.ewm.event.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.category.dto.CategoryDto;
+import ru.practicum.ewm.event.dto.EventSearchParams;
+import ru.practicum.ewm.event.dto.EventShortDto;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.user.dto.UserShortDto;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный кэш страниц публичного поиска. Хранит события без просмотров: просмотры подставляются при каждом
+ * ответе из кэша просмотров. Публикация и изменение события администратором сбрасывают только ключи,
+ * в выдачу которых событие может попасть по категории; остальное устаревает по expire-after.
+ */
+@Slf4j
+@Component
+public class EventSearchCache {
+
+    private final EventSearchCacheProperties properties;
+    private final Cache<EventSearchKey, CursorPage<CachedEvent>> cache;
+    private final Counter invalidations;
+
+    public EventSearchCache(EventSearchCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getExpireAfter())
+                .recordStats()
+                .build();
+        this.invalidations = meterRegistry.counter("events.search.cache.invalidations");
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "event-search");
+    }
+
+    public EventSearchKey key(EventSearchParams params) {
+        return EventSearchKey.of(params, properties.getTimeGranularity());
+    }
+
+    public CursorPage<CachedEvent> get(EventSearchKey key, Supplier<CursorPage<CachedEvent>> loader) {
+        return cache.get(key, k -> loader.get());
+    }
+
+    /**
+     * Сброс выполняется после коммита, иначе параллельный запрос успел бы закэшировать старые данные.
+     */
+    public void invalidateCategories(Collection<Long> categoryIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(categoryIds);
+                }
+            });
+        } else {
+            invalidate(categoryIds);
+        }
+    }
+
+    private void invalidate(Collection<Long> categoryIds) {
+        List<EventSearchKey> stale = cache.asMap().keySet().stream()
+                .filter(key -> key.coversAnyCategory(categoryIds))
+                .toList();
+        if (!stale.isEmpty()) {
+            cache.invalidateAll(stale);
+            invalidations.increment(stale.size());
+            log.debug("Сброшено {} страниц поиска для категорий {}", stale.size(), categoryIds);
+        }
+    }
+
+    /**
+     * Неизменяемый снимок события в кэше: поля для запроса просмотров (id, дата создания, сохранённый счётчик)
+     * и для ответа. DTO собирается заново на каждый ответ, поэтому вызывающий код не может изменить кэш.
+     */
+    public record CachedEvent(long id,
+                              String annotation,
+                              Long categoryId,
+                              String categoryName,
+                              LocalDateTime eventDate,
+                              Long initiatorId,
+                              String initiatorName,
+                              Boolean paid,
+                              String title,
+                              long confirmedRequests,
+                              LocalDateTime createdOn,
+                              long views) {
+
+        public static CachedEvent of(Event event) {
+            return new CachedEvent(event.getId(), event.getAnnotation(),
+                    event.getCategory().getId(), event.getCategory().getName(), event.getEventDate(),
+                    event.getInitiator().getId(), event.getInitiator().getName(), event.getPaid(), event.getTitle(),
+                    event.getConfirmedRequests(), event.getCreatedOn(), event.getViews());
+        }
+
+        /**
+         * Событие только с полями, по которым считаются просмотры.
+         */
+        public Event toViewsSource() {
+            return Event.builder()
+                    .id(id)
+                    .createdOn(createdOn)
+                    .views(views)
+                    .build();
+        }
+
+        public EventShortDto toDto(long views) {
+            return EventShortDto.builder()
+                    .id(id)
+                    .annotation(annotation)
+                    .category(new CategoryDto(categoryId, categoryName))
+                    .eventDate(eventDate)
+                    .initiator(new UserShortDto(initiatorId, initiatorName))
+                    .paid(paid)
+                    .title(title)
+                    .confirmedRequests(confirmedRequests)
+                    .views(views)
+                    .build();
+        }
+    }
+}
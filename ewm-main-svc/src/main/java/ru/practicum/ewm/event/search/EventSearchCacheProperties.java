@@ -0,0 +1,22 @@
+package ru.practicum.ewm.event.search;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "events.search.cache")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EventSearchCacheProperties {
+    long maxSize = 1_000;
+    Duration expireAfter = Duration.ofSeconds(30);
+    /**
+     * До какой точности усекаются rangeStart и rangeEnd, чтобы близкие по времени запросы попадали в один ключ.
+     */
+    Duration timeGranularity = Duration.ofMinutes(1);
+}
@@ -0,0 +1,91 @@
+package ru.practicum.ewm.event.search;
+
+import ru.practicum.ewm.event.dto.EventSearchParams;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Нормализованные параметры публичного поиска: регистр текста и сортировки не важен, категории отсортированы,
+ * границы диапазона дат усечены до заданной точности. Ключ неизменяем, списки в нём — копии параметров запроса.
+ */
+public record EventSearchKey(String text,
+                             List<Long> categories,
+                             Boolean paid,
+                             LocalDateTime rangeStart,
+                             LocalDateTime rangeEnd,
+                             boolean onlyAvailable,
+                             String sort,
+                             String direction,
+                             int from,
+                             int size,
+                             String cursor,
+                             Double lat,
+                             Double lon,
+                             Double radius,
+                             List<Double> bbox) {
+
+    public static EventSearchKey of(EventSearchParams params, Duration granularity) {
+        return new EventSearchKey(
+                params.getText() == null ? null : params.getText().trim().toLowerCase(Locale.ROOT),
+                params.getCategories() == null || params.getCategories().isEmpty() ? null
+                        : params.getCategories().stream().distinct().sorted().toList(),
+                params.getPaid(),
+                truncate(params.getRangeStart(), granularity),
+                truncate(params.getRangeEnd(), granularity),
+                Boolean.TRUE.equals(params.getOnlyAvailable()),
+                params.getSort() == null ? null : params.getSort().toUpperCase(Locale.ROOT),
+                params.getDirection() == null ? null : params.getDirection().toUpperCase(Locale.ROOT),
+                params.getCursor() == null || params.getCursor().isBlank() ? params.getFrom() : 0,
+                params.getSize(),
+                params.getCursor() == null || params.getCursor().isBlank() ? null : params.getCursor(),
+                params.getLat(),
+                params.getLon(),
+                params.getRadius(),
+                params.getBbox() == null ? null : List.copyOf(params.getBbox()));
+    }
+
+    /**
+     * Параметры поиска, соответствующие ключу: страница для кэша загружается по ним, а не по параметрам запроса,
+     * которые вызывающий код может изменить.
+     */
+    public EventSearchParams toParams() {
+        return EventSearchParams.builder()
+                .text(text)
+                .categories(categories)
+                .paid(paid)
+                .rangeStart(rangeStart)
+                .rangeEnd(rangeEnd)
+                .onlyAvailable(onlyAvailable)
+                .sort(sort)
+                .direction(direction)
+                .from(from)
+                .size(size)
+                .cursor(cursor)
+                .lat(lat)
+                .lon(lon)
+                .radius(radius)
+                .bbox(bbox)
+                .build();
+    }
+
+    /**
+     * Может ли в выдаче по этому ключу оказаться событие одной из категорий.
+     */
+    public boolean coversAnyCategory(Collection<Long> categoryIds) {
+        return categories == null || categoryIds.stream().anyMatch(categories::contains);
+    }
+
+    private static LocalDateTime truncate(LocalDateTime value, Duration granularity) {
+        long step = granularity.toSeconds();
+        if (value == null || step < 1) {
+            return value;
+        }
+        long seconds = value.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, step) * step, 0, ZoneOffset.UTC);
+    }
+}
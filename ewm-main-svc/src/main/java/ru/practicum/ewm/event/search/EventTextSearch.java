@@ -0,0 +1,27 @@
+package ru.practicum.ewm.event.search;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import ru.practicum.ewm.event.model.Event;
+
+/**
+ * Полнотекстовый поиск по аннотации и описанию события. Условие и релевантность отдаются в виде выражений
+ * Criteria API, поэтому поиск комбинируется с остальными фильтрами публичного поиска в одном запросе.
+ */
+public interface EventTextSearch {
+
+    Predicate matches(Root<Event> root, CriteriaBuilder criteriaBuilder, String text);
+
+    Expression<? extends Number> rank(Root<Event> root, CriteriaBuilder criteriaBuilder, String text);
+
+    void index(Event event);
+
+    /**
+     * Есть ли в тексте хотя бы одно слово; запрос из одних разделителей ничего не находит.
+     */
+    static boolean hasTerms(String text) {
+        return !SearchTokens.split(text).isEmpty();
+    }
+}
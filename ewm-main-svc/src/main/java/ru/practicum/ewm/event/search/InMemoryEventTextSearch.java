@@ -0,0 +1,142 @@
+package ru.practicum.ewm.event.search;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.event.model.Event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Инвертированный индекс в памяти для H2, где нет полнотекстового поиска. Строится лениво при первом обращении
+ * и обновляется после коммита транзакции, в которой событие создано или изменено. Веса аннотации и описания
+ * совпадают с весами A и B в ts_rank, чтобы порядок выдачи был близок к Postgres.
+ */
+@Slf4j
+public class InMemoryEventTextSearch implements EventTextSearch {
+
+    private static final double ANNOTATION_WEIGHT = 1.0;
+    private static final double DESCRIPTION_WEIGHT = 0.4;
+
+    private final EventRepository eventRepository;
+    private final int batchSize;
+
+    private final NavigableMap<String, Map<Long, Double>> postings = new TreeMap<>();
+    private final Map<Long, List<String>> eventTokens = new HashMap<>();
+    private boolean built;
+
+    public InMemoryEventTextSearch(EventRepository eventRepository, int batchSize) {
+        this.eventRepository = eventRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Predicate matches(Root<Event> root, CriteriaBuilder criteriaBuilder, String text) {
+        Map<Long, Double> scores = search(text);
+        if (scores.isEmpty()) {
+            return criteriaBuilder.disjunction();
+        }
+        return root.get("id").in(scores.keySet());
+    }
+
+    @Override
+    public Expression<? extends Number> rank(Root<Event> root, CriteriaBuilder criteriaBuilder, String text) {
+        Map<Long, Double> scores = search(text);
+        if (scores.isEmpty()) {
+            return criteriaBuilder.literal(0.0);
+        }
+        CriteriaBuilder.SimpleCase<Long, Double> rank = criteriaBuilder.selectCase(root.get("id"));
+        scores.forEach(rank::when);
+        return rank.otherwise(0.0);
+    }
+
+    @Override
+    public void index(Event event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(event.getId(), event.getAnnotation(), event.getDescription());
+                }
+            });
+        } else {
+            put(event.getId(), event.getAnnotation(), event.getDescription());
+        }
+    }
+
+    /**
+     * События, содержащие все слова запроса (как префиксы), с суммарным весом совпадений.
+     */
+    synchronized Map<Long, Double> search(String text) {
+        build();
+        Map<Long, Double> result = null;
+        for (String token : SearchTokens.split(text)) {
+            Map<Long, Double> matched = new HashMap<>();
+            postings.subMap(token, true, token + Character.MAX_VALUE, true).values()
+                    .forEach(events -> events.forEach((id, score) -> matched.merge(id, score, Double::sum)));
+            if (result == null) {
+                result = matched;
+            } else {
+                result.keySet().retainAll(matched.keySet());
+                result.replaceAll((id, score) -> score + matched.get(id));
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? Map.of() : result;
+    }
+
+    private synchronized void put(Long eventId, String annotation, String description) {
+        if (!built) {
+            return;
+        }
+        remove(eventId);
+        Map<String, Double> weights = new HashMap<>();
+        SearchTokens.split(annotation).forEach(token -> weights.merge(token, ANNOTATION_WEIGHT, Double::sum));
+        SearchTokens.split(description).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Double::sum));
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, key -> new HashMap<>()).put(eventId, weight));
+        eventTokens.put(eventId, List.copyOf(weights.keySet()));
+    }
+
+    private void remove(Long eventId) {
+        List<String> tokens = eventTokens.remove(eventId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<Long, Double> events = postings.get(token);
+            events.remove(eventId);
+            if (events.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    private void build() {
+        if (built) {
+            return;
+        }
+        built = true;
+        long lastId = 0;
+        List<Event> batch;
+        do {
+            batch = eventRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(batchSize));
+            for (Event event : batch) {
+                put(event.getId(), event.getAnnotation(), event.getDescription());
+                lastId = event.getId();
+            }
+        } while (batch.size() == batchSize);
+        log.info("Построен текстовый индекс событий: {} слов, {} событий", postings.size(), eventTokens.size());
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.ewm.event.search;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import ru.practicum.ewm.event.model.Event;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск через tsvector и GIN-индекс idx_events_text_search. Каждое слово запроса ищется как префикс,
+ * событие должно содержать все слова; релевантность считает ts_rank с весом A для аннотации и B для описания.
+ */
+public class PostgresEventTextSearch implements EventTextSearch {
+
+    @Override
+    public Predicate matches(Root<Event> root, CriteriaBuilder criteriaBuilder, String text) {
+        String query = toTsQuery(text);
+        if (query == null) {
+            return criteriaBuilder.disjunction();
+        }
+        return criteriaBuilder.isTrue(criteriaBuilder.function(TextSearchFunctions.MATCH, Boolean.class,
+                root.get("annotation"), root.get("description"), criteriaBuilder.literal(query)));
+    }
+
+    @Override
+    public Expression<? extends Number> rank(Root<Event> root, CriteriaBuilder criteriaBuilder, String text) {
+        return criteriaBuilder.function(TextSearchFunctions.RANK, Double.class,
+                root.get("annotation"), root.get("description"), criteriaBuilder.literal(toTsQuery(text)));
+    }
+
+    @Override
+    public void index(Event event) {
+        // индекс поддерживает сама база
+    }
+
+    private static String toTsQuery(String text) {
+        List<String> tokens = SearchTokens.split(text);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        return tokens.stream()
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.ewm.event.search;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Регистрирует в Hibernate функции полнотекстового поиска для Postgres. Выражение tsvector совпадает
+ * с выражением индекса idx_events_text_search, иначе планировщик не сможет его использовать.
+ */
+public class TextSearchFunctions implements FunctionContributor {
+
+    static final String MATCH = "event_text_match";
+    static final String RANK = "event_text_rank";
+
+    private static final String VECTOR = "(setweight(to_tsvector('simple', ?1), 'A') || " +
+            "setweight(to_tsvector('simple', ?2), 'B'))";
+    private static final String QUERY = "to_tsquery('simple', ?3)";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof PostgreSQLDialect)) {
+            return;
+        }
+        var types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        functionContributions.getFunctionRegistry().registerPattern(MATCH,
+                "(" + VECTOR + " @@ " + QUERY + ")", types.resolve(StandardBasicTypes.BOOLEAN));
+        functionContributions.getFunctionRegistry().registerPattern(RANK,
+                "ts_rank(" + VECTOR + ", " + QUERY + ")", types.resolve(StandardBasicTypes.DOUBLE));
+    }
+}
@@ -2,8 +2,8 @@ package ru.practicum.ewm.event.service;
 
 import jakarta.servlet.http.HttpServletRequest;
 import ru.practicum.ewm.event.dto.*;
+import ru.practicum.ewm.pagination.CursorPage;
 
-import java.util.Collection;
 
 public interface EventService {
     EventFullDto create(Long userId, NewEventDto newEventDto);
@@ -14,11 +14,12 @@ public interface EventService {
 
     EventFullDto getEventOfUser(Long userId, Long eventId);
 
-    Collection<EventShortDto> findAllByPublic(EventSearchParams params, HttpServletRequest request);
+    CursorPage<EventShortDto> findAllByPublic(EventSearchParams params, HttpServletRequest request);
 
-    Collection<EventShortDto> findAllByPrivate(Long userId, Integer from, Integer size, HttpServletRequest request);
+    CursorPage<EventShortDto> findAllByPrivate(Long userId, Integer from, Integer size, String cursor,
+                                               HttpServletRequest request);
 
-    Collection<EventFullDto> findAllByAdmin(EventSearchParams params, HttpServletRequest request);
+    CursorPage<EventFullDto> findAllByAdmin(EventSearchParams params, HttpServletRequest request);
 
     EventFullDto findEventById(Long eventId, HttpServletRequest request);
 
@@ -1,45 +1,49 @@
 package ru.practicum.ewm.event.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.category.CategoryRepository;
 import ru.practicum.ewm.category.mapper.CategoryMapper;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.enums.EventState;
-import ru.practicum.ewm.enums.RequestStatus;
 import ru.practicum.ewm.enums.StateAction;
 import ru.practicum.ewm.event.EventRepository;
 import ru.practicum.ewm.event.dto.*;
 import ru.practicum.ewm.event.mapper.EventMapper;
 import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.search.EventSearchCache;
+import ru.practicum.ewm.event.search.EventSearchKey;
+import ru.practicum.ewm.event.search.EventTextSearch;
 import ru.practicum.ewm.exception.*;
 import ru.practicum.ewm.location.LocationRepository;
+import ru.practicum.ewm.location.geo.GeoPredicates;
 import ru.practicum.ewm.location.mapper.LocationMapper;
 import ru.practicum.ewm.location.model.Location;
-import ru.practicum.ewm.request.EventRequestRepository;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursors;
+import ru.practicum.ewm.request.admission.AdmissionQueue;
+import ru.practicum.ewm.request.waitlist.WaitlistPromoter;
 import ru.practicum.ewm.stats.AsyncStatsClient;
+import ru.practicum.ewm.stats.EventViewsSync;
+import ru.practicum.ewm.stats.ViewCountService;
 import ru.practicum.ewm.user.UserRepository;
 import ru.practicum.ewm.user.mapper.UserMapper;
 import ru.practicum.ewm.user.model.User;
-import ru.practicum.stat.StatisticsClient;
-import ru.practicum.stat.ViewStatsDto;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -56,11 +60,14 @@ public class EventServiceImpl implements EventService {
     CategoryRepository categoryRepository;
     LocationRepository locationRepository;
     UserRepository userRepository;
-    EventRequestRepository eventRequestRepository;
 
-    StatisticsClient statClient;
     AsyncStatsClient asyncStatsClient;
-    ObjectMapper mapper;
+    ViewCountService viewCountService;
+    EventViewsSync eventViewsSync;
+    EventTextSearch eventTextSearch;
+    EventSearchCache eventSearchCache;
+    WaitlistPromoter waitlistPromoter;
+    AdmissionQueue admissionQueue;
 
     @Override
     public EventFullDto create(Long userId, NewEventDto newEventDto) {
@@ -81,6 +88,7 @@ public class EventServiceImpl implements EventService {
         event.setLocation(savedLocation);
 
         Event eventSaved = eventRepository.save(event);
+        eventTextSearch.index(eventSaved);
 
         return EventMapper.toEventFullDto(eventSaved);
     }
@@ -88,6 +96,8 @@ public class EventServiceImpl implements EventService {
     @Override
     public EventFullDto updateEventByAdmin(Long eventId, UpdateEventAdminRequest adminRequest) {
         Event event = getEventById(eventId);
+        boolean wasPublished = event.getState() == EventState.PUBLISHED;
+        Long previousCategoryId = event.getCategory().getId();
 
         LocalDateTime eventDate = (adminRequest.getEventDate() != null) ? adminRequest.getEventDate() : event.getEventDate();
         validateEventDateForAdmin(eventDate, adminRequest.getStateAction());
@@ -99,8 +109,19 @@ public class EventServiceImpl implements EventService {
                 adminRequest.getCategory());
 
         processStateAction(event, adminRequest.getStateAction());
+        if (adminRequest.getHighDemand() != null) {
+            event.setHighDemand(adminRequest.getHighDemand());
+            admissionQueue.evictHighDemand(eventId);
+        }
 
         Event updatedEvent = eventRepository.save(event);
+        eventTextSearch.index(updatedEvent);
+        if (wasPublished || updatedEvent.getState() == EventState.PUBLISHED) {
+            eventSearchCache.invalidateCategories(Set.copyOf(List.of(previousCategoryId, updatedEvent.getCategory().getId())));
+        }
+        if (adminRequest.getParticipantLimit() != null || adminRequest.getRequestModeration() != null) {
+            waitlistPromoter.schedule(eventId);
+        }
         return EventMapper.toEventFullDto(updatedEvent);
     }
 
@@ -125,6 +146,7 @@ public class EventServiceImpl implements EventService {
         processStateAction(event, eventUserRequest.getStateAction());
 
         Event updatedEvent = eventRepository.save(event);
+        eventTextSearch.index(updatedEvent);
         return EventMapper.toEventFullDto(updatedEvent);
     }
 
@@ -142,7 +164,7 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    public Collection<EventShortDto> findAllByPublic(EventSearchParams params, HttpServletRequest request) {
+    public CursorPage<EventShortDto> findAllByPublic(EventSearchParams params, HttpServletRequest request) {
 
         if (params.getRangeStart() != null && params.getRangeEnd() != null && params.getRangeStart().isAfter(params.getRangeEnd())) {
             throw new IllegalArgumentException("rangeStart должен быть раньше rangeEnd");
@@ -152,17 +174,51 @@ public class EventServiceImpl implements EventService {
             throw new IncorrectRequestException("Unknown sort type");
         }
 
-        Pageable pageable = PageRequest.of(params.getFrom(), params.getSize());
-        Specification<Event> spec = (root, query, criteriaBuilder) -> {
+        validateGeoParams(params);
+
+        if (params.getText() != null && !EventTextSearch.hasTerms(params.getText())) {
+            sendStats(request);
+            return new CursorPage<>(List.of(), null);
+        }
+
+        EventSearchKey key = eventSearchCache.key(params);
+        CursorPage<EventSearchCache.CachedEvent> page = eventSearchCache.get(key,
+                () -> searchPublished(key.toParams()));
+
+        sendStats(request);
+
+        Map<Long, Long> views = viewCountService.getViews(page.items().stream()
+                .map(EventSearchCache.CachedEvent::toViewsSource)
+                .toList());
+
+        return page.map(cached -> cached.toDto(views.getOrDefault(cached.id(), cached.views())));
+    }
+
+    private CursorPage<EventSearchCache.CachedEvent> searchPublished(EventSearchParams params) {
+        Sort sort = publicSort(params);
+        ScrollPosition position = PageCursors.position(params.getCursor(), params.getFrom(), sort);
+        Window<Event> window = eventRepository.findBy(publicSpecification(params, sort), query -> query.sortBy(sort)
+                .limit(params.getSize())
+                .scroll(position));
+        return PageCursors.page(window, sort)
+                .map(EventSearchCache.CachedEvent::of);
+    }
+
+    private Specification<Event> publicSpecification(EventSearchParams params, Sort sort) {
+        return (root, query, criteriaBuilder) -> {
+            if (Event.class.equals(query.getResultType())) {
+                root.fetch("category");
+                root.fetch("initiator");
+            }
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(criteriaBuilder.equal(root.get("state"), EventState.PUBLISHED));
 
-
             if (params.getText() != null) {
-                predicates.add(criteriaBuilder.or(
-                        criteriaBuilder.like(criteriaBuilder.lower(root.get("annotation")), "%" + params.getText().toLowerCase() + "%"),
-                        criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), "%" + params.getText().toLowerCase() + "%")
-                ));
+                predicates.add(eventTextSearch.matches(root, criteriaBuilder, params.getText()));
+                if (sort.isUnsorted()) {
+                    query.orderBy(criteriaBuilder.desc(eventTextSearch.rank(root, criteriaBuilder, params.getText())),
+                            criteriaBuilder.asc(root.get("id")));
+                }
             }
 
             if (params.getCategories() != null && !params.getCategories().isEmpty()) {
@@ -179,6 +235,17 @@ public class EventServiceImpl implements EventService {
                 predicates.add(criteriaBuilder.between(root.get("eventDate"), params.getRangeStart(), params.getRangeEnd()));
             }
 
+            if (params.getRadius() != null) {
+                predicates.add(GeoPredicates.withinRadius(root.get("location"), criteriaBuilder,
+                        params.getLat(), params.getLon(), params.getRadius()));
+            }
+
+            if (params.getBbox() != null) {
+                List<Double> bbox = params.getBbox();
+                predicates.add(GeoPredicates.withinBox(root.get("location"), criteriaBuilder,
+                        bbox.get(1), bbox.get(0), bbox.get(3), bbox.get(2)));
+            }
+
             if (Boolean.TRUE.equals(params.getOnlyAvailable())) {
                 predicates.add(criteriaBuilder.or(
                         criteriaBuilder.equal(root.get("participantLimit"), 0),
@@ -188,95 +255,131 @@ public class EventServiceImpl implements EventService {
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        Page<Event> eventPage = eventRepository.findAll(spec, pageable);
-
-        sendStats(request);
+    private void validateGeoParams(EventSearchParams params) {
+        boolean hasPoint = params.getLat() != null || params.getLon() != null || params.getRadius() != null;
+        if (hasPoint) {
+            if (params.getLat() == null || params.getLon() == null || params.getRadius() == null) {
+                throw new IncorrectRequestException("Параметры lat, lon и radius задаются вместе");
+            }
+            validateCoordinates(params.getLat(), params.getLon());
+            if (params.getRadius() <= 0) {
+                throw new IncorrectRequestException("radius должен быть положительным");
+            }
+        }
+        List<Double> bbox = params.getBbox();
+        if (bbox != null) {
+            if (bbox.size() != 4 || bbox.contains(null)) {
+                throw new IncorrectRequestException("bbox задаётся как minLon,minLat,maxLon,maxLat");
+            }
+            validateCoordinates(bbox.get(1), bbox.get(0));
+            validateCoordinates(bbox.get(3), bbox.get(2));
+            if (bbox.get(0) > bbox.get(2) || bbox.get(1) > bbox.get(3)) {
+                throw new IncorrectRequestException("В bbox минимальные координаты должны быть не больше максимальных");
+            }
+        }
+    }
 
-        List<EventShortDto> eventShortDtos = eventPage.getContent().stream()
-                .map(event -> {
-                    EventShortDto eventDto = EventMapper.toEventShortDto(event);
-                    eventDto.setViews(getViews(event.getId(), event.getCreatedOn(), request));
-                    eventDto.setConfirmedRequests(eventDto.getConfirmedRequests());
-                    return eventDto;
-                })
-                .collect(Collectors.toList());
-
-        if ("EVENT_DATE".equalsIgnoreCase(params.getSort())) {
-            eventShortDtos.sort(Comparator.comparing(EventShortDto::getEventDate));
-        } else if ("VIEWS".equalsIgnoreCase(params.getSort())) {
-            eventShortDtos.sort(Comparator.comparing(EventShortDto::getViews));
+    private void validateCoordinates(double lat, double lon) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new IncorrectRequestException("Координаты вне допустимого диапазона");
         }
+    }
 
-        return eventShortDtos;
+    /**
+     * Сортировка выполняется в базе по индексам (state, event_date, id) и (state, views, id);
+     * id в конце делает порядок устойчивым между страницами. По просмотрам по умолчанию сортируем по убыванию,
+     * по дате события — по возрастанию. Поиск по тексту без явной сортировки упорядочивается по релевантности
+     * прямо в спецификации, а страницы листаются по смещению.
+     */
+    private Sort publicSort(EventSearchParams params) {
+        if (params.getSort() == null && params.getText() != null) {
+            return Sort.unsorted();
+        }
+        if (params.getSort() == null) {
+            return Sort.by(Sort.Direction.ASC, "id");
+        }
+        String property = "EVENT_DATE".equalsIgnoreCase(params.getSort()) ? "eventDate" : "views";
+        Sort.Direction direction = "views".equals(property) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (params.getDirection() != null) {
+            direction = Sort.Direction.fromOptionalString(params.getDirection())
+                    .orElseThrow(() -> new IncorrectRequestException("Unknown sort direction"));
+        }
+        return Sort.by(direction, property, "id");
     }
 
     @Override
-    public Collection<EventShortDto> findAllByPrivate(Long userId, Integer from, Integer size, HttpServletRequest request) {
+    public CursorPage<EventShortDto> findAllByPrivate(Long userId, Integer from, Integer size, String cursor,
+                                                      HttpServletRequest request) {
 
         User user = getUserById(userId);
-        Pageable pageable = PageRequest.of(from, size);
-        List<Event> events = eventRepository.findAllByInitiatorId(user.getId(), pageable);
-
-        List<Long> eventIds = events.stream().map(Event::getId).collect(Collectors.toList());
-        Map<Long, Long> confirmedRequestsMap = getConfirmedRequestsForEvents(eventIds);
-
-        return events.stream()
-                .map(event -> {
-                    EventShortDto eventShortDto = EventMapper.toEventShortDto(event);
-                    eventShortDto.setCategory(CategoryMapper.toCategoryDto(event.getCategory()));
-                    eventShortDto.setInitiator(UserMapper.toUserShortDto(event.getInitiator()));
-                    eventShortDto.setViews(getViews(event.getId(), event.getCreatedOn(), request));
-
-                    eventShortDto.setConfirmedRequests(confirmedRequestsMap.getOrDefault(event.getId(), 0L));
-
-                    return eventShortDto;
-                })
-                .collect(Collectors.toCollection(ArrayList::new));
+        Sort sort = Sort.by(Sort.Direction.ASC, "id");
+        Window<Event> window = eventRepository.findByInitiatorId(user.getId(),
+                PageCursors.position(cursor, from, sort), Limit.of(size), sort);
+        CursorPage<Event> page = PageCursors.page(window, sort);
+
+        Map<Long, Long> views = viewCountService.getViews(page.items());
+
+        return page.map(event -> {
+            EventShortDto eventShortDto = EventMapper.toEventShortDto(event);
+            eventShortDto.setCategory(CategoryMapper.toCategoryDto(event.getCategory()));
+            eventShortDto.setInitiator(UserMapper.toUserShortDto(event.getInitiator()));
+            eventShortDto.setViews(views.getOrDefault(event.getId(), event.getViews()));
+            return eventShortDto;
+        });
     }
 
     @Override
-    public Collection<EventFullDto> findAllByAdmin(EventSearchParams params, HttpServletRequest request) {
-
-        Pageable pageable = PageRequest.of(params.getFrom(), params.getSize());
+    public CursorPage<EventFullDto> findAllByAdmin(EventSearchParams params, HttpServletRequest request) {
 
-        List<Event> eventList;
+        Sort sort = Sort.by(Sort.Direction.ASC, "id");
+        ScrollPosition position = PageCursors.position(params.getCursor(), params.getFrom(), sort);
+        CursorPage<Event> page;
         try {
-            eventList = eventRepository.findAllByAdmin(
-                    params.getUsers(),
-                    params.getStates(),
-                    params.getCategories(),
-                    params.getRangeStart(),
-                    params.getRangeEnd(),
-                    pageable
-            );
+            Window<Event> window = eventRepository.findBy(adminSpecification(params), query -> query.sortBy(sort)
+                    .limit(params.getSize())
+                    .scroll(position));
+            page = PageCursors.page(window, sort);
         } catch (Exception e) {
             log.error("Ошибка при выполнении запроса к БД для поиска событий админом", e);
             throw new DatabaseAccessException("Не удалось получить события из базы данных", e);
         }
 
-        List<Long> eventIds = eventList.stream().map(Event::getId).collect(Collectors.toList());
-        Map<Long, Long> confirmedRequestsMap = getConfirmedRequestsForEvents(eventIds);
-
-        return eventList.stream()
-                .map(event -> {
-                    EventFullDto dto = EventMapper.toEventFullDto(event);
-                    dto.setViews(getViews(event.getId(), event.getCreatedOn(), request));
-                    dto.setConfirmedRequests(confirmedRequestsMap.getOrDefault(event.getId(), 0L));
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        Map<Long, Long> views = viewCountService.getViews(page.items());
+
+        return page.map(event -> {
+            EventFullDto dto = EventMapper.toEventFullDto(event);
+            dto.setViews(views.getOrDefault(event.getId(), event.getViews()));
+            return dto;
+        });
     }
 
-    private Map<Long, Long> getConfirmedRequestsForEvents(List<Long> eventIds) {
-        List<Object[]> results = eventRequestRepository.countByEventIdInAndStatus(eventIds, RequestStatus.CONFIRMED);
-        Map<Long, Long> confirmedRequestsMap = new HashMap<>();
-        for (Object[] result : results) {
-            Long eventId = (Long) result[0];
-            Long count = (Long) result[1];
-            confirmedRequestsMap.put(eventId, count);
-        }
-        return confirmedRequestsMap;
+    private Specification<Event> adminSpecification(EventSearchParams params) {
+        return (root, query, criteriaBuilder) -> {
+            if (Event.class.equals(query.getResultType())) {
+                root.fetch("category");
+                root.fetch("initiator");
+                root.fetch("location");
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            if (params.getUsers() != null) {
+                predicates.add(root.get("initiator").get("id").in(params.getUsers()));
+            }
+            if (params.getStates() != null) {
+                predicates.add(root.get("state").in(params.getStates()));
+            }
+            if (params.getCategories() != null) {
+                predicates.add(root.get("category").get("id").in(params.getCategories()));
+            }
+            if (params.getRangeStart() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("eventDate"), params.getRangeStart()));
+            }
+            if (params.getRangeEnd() != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("eventDate"), params.getRangeEnd()));
+            }
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
     }
 
     @Override
@@ -288,10 +391,10 @@ public class EventServiceImpl implements EventService {
         }
 
         sendStats(request);
+        eventViewsSync.markViewed(eventId);
 
         EventFullDto eventFullDto = EventMapper.toEventFullDto(event);
-        eventFullDto.setViews(getViews(eventId, event.getCreatedOn(), request));
-        eventFullDto.setConfirmedRequests(eventRequestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED));
+        eventFullDto.setViews(viewCountService.getViews(event));
         return eventFullDto;
     }
 
@@ -319,11 +422,11 @@ public class EventServiceImpl implements EventService {
         if (stateAction != null && !stateAction.equals(StateAction.REJECT_EVENT) && !stateAction.equals(StateAction.PUBLISH_EVENT)) {
             throw new ForbiddenException("Неизвестный state action");
         }
-        if (!state.equals(EventState.PENDING) && stateAction.equals(StateAction.PUBLISH_EVENT)) {
+        if (!state.equals(EventState.PENDING) && StateAction.PUBLISH_EVENT.equals(stateAction)) {
             throw new ConflictException("\n" +
                     "Не удается опубликовать незавершенное событие");
         }
-        if (state.equals(EventState.PUBLISHED) && stateAction.equals(StateAction.REJECT_EVENT)) {
+        if (state.equals(EventState.PUBLISHED) && StateAction.REJECT_EVENT.equals(stateAction)) {
             throw new ConflictException("Невозможно отклонить уже опубликованное событие");
         }
     }
@@ -386,42 +489,4 @@ public class EventServiceImpl implements EventService {
     private void sendStats(HttpServletRequest request) {
         asyncStatsClient.sendHit(request.getRequestURI(), request.getRemoteAddr());
     }
-
-    private Long getViews(Long eventId, LocalDateTime createdOn, HttpServletRequest request) {
-        LocalDateTime end = LocalDateTime.now();
-        String uri = request.getRequestURI();
-        Boolean unique = true;
-        Long defaultViews = 0L;
-
-        try {
-            ResponseEntity<Object> statsResponse = statClient.getStats(createdOn, end, List.of(uri), unique);
-            log.info("Запрос к statClient: URI={}, from={}, to={}, unique={}", uri, createdOn, end, unique);
-            log.info("Ответ от statClient: status={}, body={}", statsResponse.getStatusCode(), statsResponse.getBody());
-            if (statsResponse.getStatusCode().is2xxSuccessful() && statsResponse.hasBody()) {
-                Object body = statsResponse.getBody();
-                if (body != null) {
-                    try {
-                        ViewStatsDto[] statsArray = mapper.convertValue(body, ViewStatsDto[].class);
-                        List<ViewStatsDto> stats = Arrays.asList(statsArray);
-
-                        if (!stats.isEmpty()) {
-                            return stats.getLast().getHits();
-                        } else {
-                            log.info("Нет данных статистики для события {}", eventId);
-                        }
-                    } catch (Exception e) {
-                        log.error("Ошибка преобразования данных статистики для события {}: {}", eventId, e.getMessage());
-                        return defaultViews;
-                    }
-                } else {
-                    log.warn("Тело ответа от statClient пустое для события {}", eventId);
-                }
-            } else {
-                log.warn("Неуспешный ответ от statClient для события {}: {}", eventId, statsResponse.getStatusCode());
-            }
-        } catch (Exception e) {
-            log.error("Ошибка при получении статистики для события {}: {}", eventId, e.getMessage());
-        }
-        return defaultViews;
-    }
 }
\ No newline at end of file
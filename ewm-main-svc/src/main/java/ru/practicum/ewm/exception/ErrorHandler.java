@@ -100,4 +100,11 @@ public class ErrorHandler {
                 e.getMessage()
         );
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequestsException(TooManyRequestsException ex) {
+        log.warn("TooManyRequestsException: {}", ex.getMessage());
+        return new ErrorResponse("TOO_MANY_REQUESTS", ex.getMessage());
+    }
+}
@@ -0,0 +1,228 @@
+package ru.practicum.ewm.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.practicum.ewm.exception.ApiError;
+import ru.practicum.ewm.idempotency.model.IdempotentResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Повтор изменяющего запроса с тем же заголовком Idempotency-Key получает сохранённый ответ первого запроса,
+ * не доходя до контроллеров и сервисов. Ключ действует в пределах метода, пути и строки запроса; повтор ключа
+ * с другим телом запроса получает 422. Аутентификации в модуле нет, поэтому пользователя ключу задаёт только
+ * путь: ключи разделяются по пользователям лишь для эндпоинтов вида /users/{userId}/..., а на /admin/...
+ * общий ключ у всех вызывающих.
+ * Ответы 5xx и временные отказы (408, 425, 429) не сохраняются, такой запрос можно повторить с тем же ключом.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(
+            HttpStatus.REQUEST_TIMEOUT.value(),
+            HttpStatus.TOO_EARLY.value(),
+            HttpStatus.TOO_MANY_REQUESTS.value());
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties, ObjectMapper objectMapper) {
+        this.store = store;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !WRITE_METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > properties.getMaxKeyLength()) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Incorrectly made request.",
+                    "Заголовок " + IDEMPOTENCY_KEY_HEADER + " должен быть непустым и не длиннее "
+                            + properties.getMaxKeyLength() + " символов");
+            return;
+        }
+        String id = scope(request, key);
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String requestHash = sha256(cachedRequest.body);
+
+        if (replayStored(id, requestHash, request, response)) {
+            return;
+        }
+        if (!store.acquire(id)) {
+            writeError(response, HttpStatus.CONFLICT, "For the requested operation the conditions are not met.",
+                    "Запрос с этим ключом идемпотентности ещё выполняется");
+            return;
+        }
+
+        try {
+            // Первый запрос мог сохранить ответ и освободить ключ между проверкой выше и acquire
+            if (replayStored(id, requestHash, request, response)) {
+                return;
+            }
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            try {
+                chain.doFilter(cachedRequest, wrapper);
+                if (isStorable(wrapper.getStatus())) {
+                    store.save(IdempotentResponse.builder()
+                            .id(id)
+                            .requestHash(requestHash)
+                            .status(wrapper.getStatus())
+                            .contentType(wrapper.getContentType())
+                            .body(new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8))
+                            .created(LocalDateTime.now())
+                            .build());
+                }
+            } finally {
+                wrapper.copyBodyToResponse();
+            }
+        } finally {
+            store.release(id);
+        }
+    }
+
+    private static boolean isStorable(int status) {
+        return status < HttpStatus.INTERNAL_SERVER_ERROR.value() && !RETRYABLE_STATUSES.contains(status);
+    }
+
+    private boolean replayStored(String id, String requestHash, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        Optional<IdempotentResponse> stored = store.find(id);
+        if (stored.isEmpty()) {
+            return false;
+        }
+        if (stored.get().getRequestHash() != null && !stored.get().getRequestHash().equals(requestHash)) {
+            log.warn("Ключ идемпотентности для {} {} повторно использован с другим телом запроса",
+                    request.getMethod(), request.getRequestURI());
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "Incorrectly made request.",
+                    "Ключ идемпотентности уже использован с другим телом запроса");
+            return true;
+        }
+        log.info("Повтор запроса {} {} с ключом идемпотентности, возвращён сохранённый ответ",
+                request.getMethod(), request.getRequestURI());
+        replay(stored.get(), response);
+        return true;
+    }
+
+    private void replay(IdempotentResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        if (stored.getBody() != null && !stored.getBody().isEmpty()) {
+            byte[] body = stored.getBody().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String reason, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ApiError(status.value(), reason, message));
+    }
+
+    private static String scope(HttpServletRequest request, String key) {
+        String scope = String.join("\n",
+                request.getMethod(),
+                request.getRequestURI(),
+                request.getQueryString() != null ? request.getQueryString() : "",
+                key);
+        return sha256(scope.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Тело запроса читается заранее, чтобы посчитать его хэш, и отдаётся контроллеру из памяти.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null
+                    ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.ewm.idempotency;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "idempotency")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class IdempotencyProperties {
+    /**
+     * Сколько хранится ответ: повтор с тем же ключом позже этого срока выполняется заново.
+     */
+    Duration ttl = Duration.ofHours(24);
+    long cacheMaxSize = 10_000;
+    int maxKeyLength = 255;
+}
@@ -0,0 +1,108 @@
+package ru.practicum.ewm.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.idempotency.model.IdempotentResponse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ответы по ключам идемпотентности: ограниченный кэш в памяти поверх таблицы idempotency_keys.
+ * Запись в кэше живёт до истечения ttl от создания ответа, а не от загрузки, поэтому кэш и таблица
+ * устаревают одновременно. Ключи запросов, которые сейчас выполняются, держатся отдельно, чтобы параллельный
+ * повтор не выполнил запрос второй раз.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final IdempotentResponseRepository repository;
+    private final IdempotencyProperties properties;
+    private final Cache<String, IdempotentResponse> cache;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public IdempotencyStore(IdempotentResponseRepository repository,
+                            IdempotencyProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaxSize())
+                .expireAfter(new Expiry<String, IdempotentResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, IdempotentResponse response, long currentTime) {
+                        return Math.max(0, remaining(response).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, IdempotentResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, response, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, IdempotentResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+    }
+
+    public Optional<IdempotentResponse> find(String id) {
+        IdempotentResponse cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<IdempotentResponse> stored = repository.findById(id)
+                .filter(response -> !remaining(response).isNegative());
+        stored.ifPresent(response -> cache.put(id, response));
+        return stored;
+    }
+
+    public boolean acquire(String id) {
+        return inFlight.add(id);
+    }
+
+    public void release(String id) {
+        inFlight.remove(id);
+    }
+
+    public void save(IdempotentResponse response) {
+        // устаревшая строка остаётся в таблице до cleanup; find её уже не видит, а вставку по тому же id она бы сорвала
+        repository.deleteByIdAndCreatedBefore(response.getId(), LocalDateTime.now().minus(properties.getTtl()));
+        try {
+            repository.saveAndFlush(response);
+        } catch (DataIntegrityViolationException e) {
+            // в таблице остаётся ответ, сохранённый первым; он же попадёт в кэш при следующем find
+            log.debug("Ответ для ключа идемпотентности {} уже сохранён другим экземпляром", response.getId());
+            return;
+        }
+        cache.put(response.getId(), response);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval:PT1H}")
+    public void cleanup() {
+        int deleted = repository.deleteCreatedBefore(LocalDateTime.now().minus(properties.getTtl()));
+        if (deleted > 0) {
+            log.info("Удалено устаревших ответов по ключам идемпотентности: {}", deleted);
+        }
+    }
+
+    private Duration remaining(IdempotentResponse response) {
+        return Duration.between(LocalDateTime.now(), response.getCreated().plus(properties.getTtl()));
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.ewm.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.idempotency.model.IdempotentResponse;
+
+import java.time.LocalDateTime;
+
+public interface IdempotentResponseRepository extends JpaRepository<IdempotentResponse, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotentResponse r WHERE r.created < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotentResponse r WHERE r.id = :id AND r.created < :before")
+    int deleteByIdAndCreatedBefore(@Param("id") String id, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,37 @@
+package ru.practicum.ewm.idempotency.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сохранённый ответ на запрос с заголовком Idempotency-Key. id — SHA-256 от метода, пути, строки запроса и ключа,
+ * requestHash — SHA-256 тела запроса, по которому повтор с другим телом отличается от настоящего повтора.
+ * Ответ всегда новый: save выполняет persist, и вставка уже занятого ключа падает на первичном ключе,
+ * а не перезаписывает сохранённый ответ через merge.
+ */
+@Data
+@Entity
+@Table(name = "idempotency_keys")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotentResponse implements Persistable<String> {
+    @Id
+    String id;
+    String requestHash;
+    int status;
+    String contentType;
+    @ToString.Exclude
+    String body;
+    LocalDateTime created;
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
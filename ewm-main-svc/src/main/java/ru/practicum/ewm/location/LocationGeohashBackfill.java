@@ -0,0 +1,49 @@
+package ru.practicum.ewm.location;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.location.geo.GeoHash;
+import ru.practicum.ewm.location.model.Location;
+
+import java.util.List;
+
+/**
+ * Заполняет geohash у локаций, сохранённых до появления колонки. Новые и изменённые локации получают geohash
+ * при сохранении, поэтому после первого прохода здесь нечего делать.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocationGeohashBackfill {
+
+    private final LocationRepository locationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${locations.geohash.backfill-batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> {
+                List<Location> batch = locationRepository.findByGeohashIsNullOrderByIdAsc(Limit.of(batchSize));
+                // точечный UPDATE, чтобы не перезаписывать координаты значениями float из сущности
+                batch.forEach(location -> locationRepository.updateGeohash(location.getId(),
+                        GeoHash.encode(location.getLat(), location.getLon(), GeoHash.PRECISION)));
+                return batch.size();
+            });
+            total += updated;
+        } while (updated == batchSize);
+        if (total > 0) {
+            log.info("Заполнен geohash у {} локаций", total);
+        }
+    }
+}
@@ -1,8 +1,19 @@
 package ru.practicum.ewm.location;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.location.model.Location;
 
+import java.util.List;
+
 public interface LocationRepository extends JpaRepository<Location,Long> {
 
+    List<Location> findByGeohashIsNullOrderByIdAsc(Limit limit);
+
+    @Modifying
+    @Query("UPDATE Location l SET l.geohash = :geohash WHERE l.id = :id")
+    int updateGeohash(@Param("id") Long id, @Param("geohash") String geohash);
 }
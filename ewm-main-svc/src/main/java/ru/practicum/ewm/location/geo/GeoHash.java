@@ -0,0 +1,105 @@
+package ru.practicum.ewm.location.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash: чередование битов долготы и широты в base32. Точки из одной ячейки имеют общий префикс,
+ * поэтому ячейка превращается в диапазон по btree-индексу на колонке locations.geohash.
+ */
+public final class GeoHash {
+
+    /**
+     * Длина хранимого geohash, ячейка около 5 x 5 м.
+     */
+    public static final int PRECISION = 9;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private GeoHash() {
+    }
+
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean even = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (even) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            even = !even;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Префиксы ячеек, целиком покрывающих прямоугольник. Выбирается самая мелкая длина префикса,
+     * при которой ячеек не больше maxCells: чем мельче ячейки, тем меньше лишних строк отсеивает точный фильтр.
+     */
+    public static List<String> cover(double minLat, double minLon, double maxLat, double maxLon, int maxCells) {
+        for (int precision = PRECISION; precision > 1; precision--) {
+            if (cellCount(minLat, minLon, maxLat, maxLon, precision) <= maxCells) {
+                return cells(minLat, minLon, maxLat, maxLon, precision);
+            }
+        }
+        return cells(minLat, minLon, maxLat, maxLon, 1);
+    }
+
+    private static long cellCount(double minLat, double minLon, double maxLat, double maxLon, int precision) {
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        long rows = index(maxLat + 90, height, 180) - index(minLat + 90, height, 180) + 1;
+        long columns = index(maxLon + 180, width, 360) - index(minLon + 180, width, 360) + 1;
+        return rows * columns;
+    }
+
+    private static List<String> cells(double minLat, double minLon, double maxLat, double maxLon, int precision) {
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        List<String> cells = new ArrayList<>();
+        for (long row = index(minLat + 90, height, 180); row <= index(maxLat + 90, height, 180); row++) {
+            for (long column = index(minLon + 180, width, 360); column <= index(maxLon + 180, width, 360); column++) {
+                cells.add(encode(row * height - 90 + height / 2, column * width - 180 + width / 2, precision));
+            }
+        }
+        return cells;
+    }
+
+    private static long index(double offset, double size, double range) {
+        return (long) Math.floor(Math.min(offset, range - size / 2) / size);
+    }
+
+    private static double cellHeight(int precision) {
+        return 180 / Math.pow(2, Math.floor(precision * 5 / 2.0));
+    }
+
+    private static double cellWidth(int precision) {
+        return 360 / Math.pow(2, Math.ceil(precision * 5 / 2.0));
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.ewm.location.geo;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import ru.practicum.ewm.location.model.Location;
+
+import java.util.List;
+
+/**
+ * Условия поиска по месту: диапазоны geohash отбирают кандидатов по индексу, затем точная проверка
+ * по координатам отсекает точки из угловых частей ячеек.
+ */
+public final class GeoPredicates {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final int MAX_CELLS = 16;
+
+    private GeoPredicates() {
+    }
+
+    public static Predicate withinRadius(Path<Location> location, CriteriaBuilder criteriaBuilder,
+                                         double lat, double lon, double radiusKm) {
+        Predicate cells = criteriaBuilder.or(radiusBoxes(lat, lon, radiusKm).stream()
+                .map(box -> inCells(location, criteriaBuilder, box.minLat(), box.minLon(), box.maxLat(), box.maxLon()))
+                .toArray(Predicate[]::new));
+
+        // haversine: sin²(Δφ/2) + cos φ1 · cos φ2 · sin²(Δλ/2) <= sin²(d / 2R)
+        Expression<Double> halfLat = sinHalf(location.get("lat"), lat, criteriaBuilder);
+        Expression<Double> halfLon = sinHalf(location.get("lon"), lon, criteriaBuilder);
+        Expression<Double> cosLat = criteriaBuilder.function("cos", Double.class, radians(location.get("lat"), criteriaBuilder));
+        Expression<Double> a = criteriaBuilder.sum(criteriaBuilder.prod(halfLat, halfLat),
+                criteriaBuilder.prod(criteriaBuilder.prod(cosLat, Math.cos(Math.toRadians(lat))),
+                        criteriaBuilder.prod(halfLon, halfLon)));
+        double limit = Math.sin(Math.min(radiusKm / (2 * EARTH_RADIUS_KM), Math.PI / 2));
+        return criteriaBuilder.and(cells, criteriaBuilder.le(a, limit * limit));
+    }
+
+    public static Predicate withinBox(Path<Location> location, CriteriaBuilder criteriaBuilder,
+                                      double minLat, double minLon, double maxLat, double maxLon) {
+        return criteriaBuilder.and(
+                inCells(location, criteriaBuilder, minLat, minLon, maxLat, maxLon),
+                criteriaBuilder.between(location.get("lat"), (float) minLat, (float) maxLat),
+                criteriaBuilder.between(location.get("lon"), (float) minLon, (float) maxLon));
+    }
+
+    /**
+     * Прямоугольники, покрывающие круг. Если круг пересекает антимеридиан, прямоугольник делится на две части
+     * по обе стороны от ±180; если захватывает полюс, берутся все долготы.
+     */
+    static List<Box> radiusBoxes(double lat, double lon, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double lonDelta = latDelta / Math.max(Math.cos(Math.toRadians(lat)), 1e-6);
+        double minLat = Math.max(lat - latDelta, -90);
+        double maxLat = Math.min(lat + latDelta, 90);
+        if (lonDelta >= 180 || lat - latDelta <= -90 || lat + latDelta >= 90) {
+            return List.of(new Box(minLat, -180, maxLat, 180));
+        }
+        double minLon = lon - lonDelta;
+        double maxLon = lon + lonDelta;
+        if (minLon < -180) {
+            return List.of(new Box(minLat, minLon + 360, maxLat, 180), new Box(minLat, -180, maxLat, maxLon));
+        }
+        if (maxLon > 180) {
+            return List.of(new Box(minLat, minLon, maxLat, 180), new Box(minLat, -180, maxLat, maxLon - 360));
+        }
+        return List.of(new Box(minLat, minLon, maxLat, maxLon));
+    }
+
+    private static Predicate inCells(Path<Location> location, CriteriaBuilder criteriaBuilder,
+                                     double minLat, double minLon, double maxLat, double maxLon) {
+        Path<String> geohash = location.get("geohash");
+        List<Predicate> ranges = GeoHash.cover(minLat, minLon, maxLat, maxLon, MAX_CELLS).stream()
+                .map(prefix -> criteriaBuilder.between(geohash, prefix,
+                        prefix + "z".repeat(GeoHash.PRECISION - prefix.length())))
+                .toList();
+        return criteriaBuilder.or(ranges.toArray(new Predicate[0]));
+    }
+
+    private static Expression<Double> sinHalf(Path<Float> column, double value, CriteriaBuilder criteriaBuilder) {
+        Expression<Double> delta = radians(criteriaBuilder.diff(column, (float) value), criteriaBuilder);
+        return criteriaBuilder.function("sin", Double.class, criteriaBuilder.quot(delta, 2.0));
+    }
+
+    private static Expression<Double> radians(Expression<? extends Number> degrees, CriteriaBuilder criteriaBuilder) {
+        return criteriaBuilder.prod(degrees, Math.PI / 180).as(Double.class);
+    }
+
+    record Box(double minLat, double minLon, double maxLat, double maxLon) {
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.ewm.location.model;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import ru.practicum.ewm.location.geo.GeoHash;
 
 @Data
 @Entity
@@ -17,4 +18,11 @@ public class Location {
     Long id;
     float lat;
     float lon;
+    String geohash;
+
+    @PrePersist
+    @PreUpdate
+    public void updateGeohash() {
+        geohash = GeoHash.encode(lat, lon, GeoHash.PRECISION);
+    }
 }
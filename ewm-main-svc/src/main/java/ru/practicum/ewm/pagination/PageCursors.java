@@ -0,0 +1,120 @@
+package ru.practicum.ewm.pagination;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import ru.practicum.ewm.exception.IncorrectRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Непрозрачные курсоры для keyset-пагинации. Курсор хранит значения ключей сортировки последнего элемента
+ * страницы, следующая страница читается запросом вида {@code WHERE (event_date, id) > (?, ?)} без OFFSET и COUNT.
+ * Параметр from по-прежнему поддерживается и означает число пропускаемых элементов.
+ */
+public final class PageCursors {
+
+    private static final String SEPARATOR = "\u001f";
+    private static final String OFFSET = "offset";
+
+    private PageCursors() {
+    }
+
+    public static ScrollPosition position(String cursor, int from, Sort sort) {
+        if (cursor != null && !cursor.isBlank()) {
+            return decode(cursor, sort);
+        }
+        return from > 0 ? ScrollPosition.offset(from - 1) : ScrollPosition.offset();
+    }
+
+    public static <T> CursorPage<T> page(Window<T> window, Sort sort) {
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            nextCursor = sort.isUnsorted()
+                    ? encodeOffset((OffsetScrollPosition) window.positionAt(window.size() - 1))
+                    : encode(window.getContent().getLast(), sort);
+        }
+        return new CursorPage<>(window.getContent(), nextCursor);
+    }
+
+    static String encode(Object last, Sort sort) {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(last);
+        List<String> parts = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Object value = wrapper.getPropertyValue(order.getProperty());
+            parts.add(order.getProperty() + "=" + toToken(value));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Для порядка, который не выражается свойствами сущности (например, релевантность), курсор хранит смещение.
+     */
+    static String encodeOffset(OffsetScrollPosition position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((OFFSET + "=" + toToken(position.getOffset())).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ScrollPosition decode(String cursor, Sort sort) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+        } catch (IllegalArgumentException e) {
+            throw new IncorrectRequestException("Некорректный курсор");
+        }
+        if (sort.isUnsorted()) {
+            if (parts.length != 1 || !parts[0].startsWith(OFFSET + "=")
+                    || !(fromToken(parts[0].substring(OFFSET.length() + 1)) instanceof Long offset)) {
+                throw new IncorrectRequestException("Курсор не соответствует сортировке");
+            }
+            return ScrollPosition.offset(offset);
+        }
+        List<Sort.Order> orders = sort.toList();
+        if (parts.length != orders.size()) {
+            throw new IncorrectRequestException("Курсор не соответствует сортировке");
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (int i = 0; i < parts.length; i++) {
+            String property = orders.get(i).getProperty();
+            if (!parts[i].startsWith(property + "=")) {
+                throw new IncorrectRequestException("Курсор не соответствует сортировке");
+            }
+            keys.put(property, fromToken(parts[i].substring(property.length() + 1)));
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static String toToken(Object value) {
+        return switch (value) {
+            case Long l -> "L" + l;
+            case Integer i -> "I" + i;
+            case LocalDateTime dateTime -> "T" + dateTime;
+            case null -> throw new IllegalStateException("Ключ сортировки не может быть null");
+            default -> "S" + value;
+        };
+    }
+
+    private static Object fromToken(String token) {
+        try {
+            String value = token.substring(1);
+            return switch (token.charAt(0)) {
+                case 'L' -> Long.parseLong(value);
+                case 'I' -> Integer.parseInt(value);
+                case 'T' -> LocalDateTime.parse(value);
+                case 'S' -> value;
+                default -> throw new IncorrectRequestException("Некорректный курсор");
+            };
+        } catch (RuntimeException e) {
+            throw new IncorrectRequestException("Некорректный курсор");
+        }
+    }
+}
@@ -1,27 +1,115 @@
 package ru.practicum.ewm.request;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.enums.RequestStatus;
-import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.request.dto.ParticipationRequestDto;
 import ru.practicum.ewm.request.model.EventRequest;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface EventRequestRepository extends JpaRepository<EventRequest, Long> {
 
     boolean existsByRequesterIdAndEventId(Long userId, Long eventId);
 
-    List<EventRequest> findByRequesterId(Long userId);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM EventRequest r WHERE r.id = :requestId")
+    Optional<EventRequest> findByIdForUpdate(@Param("requestId") Long requestId);
 
-    long countByEventIdAndStatus(Long eventId, RequestStatus status);
+    Window<EventRequest> findByRequesterId(Long userId, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<EventRequest> findByRequesterIdAndStatus(Long userId, RequestStatus status,
+                                                    ScrollPosition position, Limit limit, Sort sort);
+
+    Window<EventRequest> findByEventId(Long eventId, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<EventRequest> findByEventIdAndStatus(Long eventId, RequestStatus status,
+                                                ScrollPosition position, Limit limit, Sort sort);
+
+    /**
+     * Заявки события для выгрузки: проекция без сущностей, строки читаются курсором порциями по fetch size.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+                SELECT new ru.practicum.ewm.request.dto.ParticipationRequestDto(r.created, r.event.id, r.id, r.requester.id, r.status)
+                FROM EventRequest r
+                WHERE r.event.id = :eventId AND r.status = :status
+                ORDER BY r.id
+            """)
+    Stream<ParticipationRequestDto> streamByEventIdAndStatus(@Param("eventId") Long eventId,
+                                                             @Param("status") RequestStatus status);
+
+    boolean existsByIdInAndEventIdNot(Collection<Long> ids, Long eventId);
+
+    boolean existsByIdInAndStatusNot(Collection<Long> ids, RequestStatus status);
 
-    @Query("SELECT r.event.id, COUNT(r) FROM EventRequest r " +
-            "WHERE r.event.id IN :eventIds AND r.status = :status " +
-            "GROUP BY r.event.id")
-    List<Object[]> countByEventIdInAndStatus(@Param("eventIds") List<Long> eventIds, @Param("status") RequestStatus status);
+    List<EventRequest> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /**
+     * Подтверждает не больше seats заявок из списка в порядке подачи.
+     */
+    @Modifying
+    @Query(value = """
+                UPDATE requests SET status = 'CONFIRMED'
+                WHERE id IN (
+                    SELECT id FROM requests
+                    WHERE id IN (:ids) AND event_id = :eventId AND status = 'PENDING'
+                    ORDER BY created, id
+                    LIMIT :seats
+                )
+            """, nativeQuery = true)
+    int confirmPending(@Param("eventId") Long eventId, @Param("ids") Collection<Long> ids, @Param("seats") long seats);
+
+    @Modifying
+    @Query("""
+                UPDATE EventRequest r SET r.status = ru.practicum.ewm.enums.RequestStatus.REJECTED
+                WHERE r.id IN :ids AND r.event.id = :eventId AND r.status = ru.practicum.ewm.enums.RequestStatus.PENDING
+            """)
+    int rejectPending(@Param("eventId") Long eventId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("""
+                UPDATE EventRequest r SET r.status = ru.practicum.ewm.enums.RequestStatus.REJECTED
+                WHERE r.event.id = :eventId AND r.status = ru.practicum.ewm.enums.RequestStatus.PENDING
+            """)
+    int rejectAllPending(@Param("eventId") Long eventId);
+
+    @Query("SELECT r.requester.id FROM EventRequest r WHERE r.event.id = :eventId AND r.requester.id IN :userIds")
+    List<Long> findRequesterIds(@Param("eventId") Long eventId, @Param("userIds") Collection<Long> userIds);
+
+    boolean existsByEventIdAndStatus(Long eventId, RequestStatus status);
+
+    long countByEventIdAndStatus(Long eventId, RequestStatus status);
 
-    List<EventRequest> findByEvent(Event event);
+    @Query("SELECT DISTINCT r.event.id FROM EventRequest r WHERE r.status = :status")
+    List<Long> findEventIdsByStatus(@Param("status") RequestStatus status);
 
+    /**
+     * Переводит первые count заявок из листа ожидания в статус status в порядке подачи.
+     */
+    @Modifying
+    @Query(value = """
+                UPDATE requests SET status = :status
+                WHERE id IN (
+                    SELECT id FROM requests
+                    WHERE event_id = :eventId AND status = 'WAITLISTED'
+                    ORDER BY created, id
+                    LIMIT :count
+                )
+            """, nativeQuery = true)
+    int promoteWaitlisted(@Param("eventId") Long eventId, @Param("status") String status, @Param("count") long count);
 }
@@ -0,0 +1,17 @@
+package ru.practicum.ewm.request.admission;
+
+import ru.practicum.ewm.request.dto.ParticipationRequestDto;
+
+/**
+ * Итог обработки одной заявки из очереди: созданная заявка либо причина отказа.
+ */
+public record AdmissionDecision(Long requester, ParticipationRequestDto request, String error) {
+
+    public static AdmissionDecision admitted(ParticipationRequestDto request) {
+        return new AdmissionDecision(request.getRequester(), request, null);
+    }
+
+    public static AdmissionDecision rejected(Long requester, String error) {
+        return new AdmissionDecision(requester, null, error);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.ewm.request.admission;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "requests.admission")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class AdmissionProperties {
+    /**
+     * Скорость пополнения корзины токенов: сколько заявок в секунду обрабатывается по одному событию.
+     */
+    double rate = 200;
+    /**
+     * Ёмкость корзины токенов, то есть сколько заявок можно обработать сразу после простоя.
+     */
+    int burst = 200;
+    int batchSize = 100;
+    int queueCapacity = 10_000;
+    int workerThreads = 2;
+    Duration ticketTtl = Duration.ofMinutes(10);
+    /**
+     * Сколько обработанных билетов хранится в памяти; билеты, которые ещё в очереди, в этот предел не входят.
+     */
+    int ticketCacheSize = 100_000;
+    Duration maxWait = Duration.ofSeconds(30);
+    /**
+     * Сколько в памяти хранится признак high-demand события до повторного чтения из базы.
+     */
+    Duration flagTtl = Duration.ofSeconds(5);
+    /**
+     * Через сколько простоя пустая очередь события удаляется из памяти.
+     */
+    Duration laneIdleTimeout = Duration.ofMinutes(1);
+}
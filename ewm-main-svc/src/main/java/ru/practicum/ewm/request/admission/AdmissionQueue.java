@@ -0,0 +1,271 @@
+package ru.practicum.ewm.request.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.exception.NotFoundException;
+import ru.practicum.ewm.exception.TooManyRequestsException;
+import ru.practicum.ewm.request.dto.AdmissionTicketDto;
+import ru.practicum.ewm.request.service.EventRequestService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Очередь допуска для событий с флагом high-demand. Заявка не обрабатывается в потоке запроса: клиент получает
+ * билет, а один рабочий поток на событие забирает заявки пачками со скоростью корзины токенов и создаёт их
+ * одной транзакцией. Нагрузка на базу по событию не зависит от размера всплеска: её задают rate и batch-size.
+ * Очередь живёт в памяти экземпляра, при перезапуске необработанные билеты теряются. Пустая очередь события,
+ * простоявшая дольше lane-idle-timeout, удаляется: к этому времени корзина токенов всё равно полна.
+ */
+@Slf4j
+@Component
+public class AdmissionQueue {
+
+    private final EventRequestService eventRequestService;
+    private final EventRepository eventRepository;
+    private final AdmissionProperties properties;
+    private final ScheduledExecutorService workers;
+    private final Cache<Long, Boolean> highDemand;
+    private final Cache<String, AdmissionTicket> tickets;
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, AdmissionTicket> queuedByRequester = new ConcurrentHashMap<>();
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public AdmissionQueue(EventRequestService eventRequestService,
+                          EventRepository eventRepository,
+                          AdmissionProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.eventRequestService = eventRequestService;
+        this.eventRepository = eventRepository;
+        this.properties = properties;
+        this.workers = Executors.newScheduledThreadPool(properties.getWorkerThreads(),
+                Thread.ofPlatform().name("admission-", 0).daemon().factory());
+        this.highDemand = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getFlagTtl())
+                .maximumSize(10_000)
+                .build();
+        // Билет в очереди не вытесняется и не истекает: на него ссылается queuedByRequester, и клиент должен
+        // дождаться итога. Вес и срок жизни он получает при повторной записи после обработки.
+        this.tickets = Caffeine.newBuilder()
+                .maximumWeight(properties.getTicketCacheSize())
+                .weigher((String id, AdmissionTicket ticket) -> ticket.getDone().isDone() ? 1 : 0)
+                .expireAfter(new Expiry<String, AdmissionTicket>() {
+                    @Override
+                    public long expireAfterCreate(String id, AdmissionTicket ticket, long currentTime) {
+                        return ticket.getDone().isDone() ? properties.getTicketTtl().toNanos() : Long.MAX_VALUE;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, AdmissionTicket ticket, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(id, ticket, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, AdmissionTicket ticket, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.admitted = meterRegistry.counter("requests.admission.admitted");
+        this.rejected = meterRegistry.counter("requests.admission.rejected");
+        meterRegistry.gauge("requests.admission.queued", lanes,
+                map -> map.values().stream().mapToInt(lane -> lane.queue.size()).sum());
+        meterRegistry.gauge("requests.admission.lanes", lanes, Map::size);
+        long sweepNanos = idleTimeout().toNanos();
+        workers.scheduleWithFixedDelay(this::retireIdleLanes, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Ставит заявку в очередь, если событие помечено high-demand. Повторная подача того же пользователя,
+     * пока заявка ждёт, возвращает уже выданный билет.
+     */
+    public Optional<AdmissionTicketDto> submitIfHighDemand(Long userId, Long eventId) {
+        if (!highDemand.get(eventId, id -> eventRepository.findHighDemandById(id).orElse(false))) {
+            return Optional.empty();
+        }
+        AdmissionTicket[] submitted = new AdmissionTicket[1];
+        // Заявка ставится внутри compute, чтобы удаление простаивающей очереди не разошлось с её пополнением.
+        Lane lane = lanes.compute(eventId, (id, existing) -> {
+            Lane current = existing != null ? existing : new Lane(id);
+            submitted[0] = queuedByRequester.computeIfAbsent(id + ":" + userId, key -> {
+                AdmissionTicket created = new AdmissionTicket(id, userId);
+                if (!current.queue.offer(created)) {
+                    return null;
+                }
+                tickets.put(created.getId(), created);
+                return created;
+            });
+            current.touch();
+            return current;
+        });
+        AdmissionTicket ticket = submitted[0];
+        if (ticket == null) {
+            throw new TooManyRequestsException("Очередь заявок на событие переполнена, повторите позже.");
+        }
+        schedule(lane, 0);
+        return Optional.of(ticket.toDto());
+    }
+
+    /**
+     * Состояние билета; если заявка ещё в очереди, ответ ждёт её обработки не дольше wait.
+     */
+    public CompletableFuture<AdmissionTicketDto> await(Long userId, String ticketId, Duration wait) {
+        AdmissionTicket ticket = tickets.getIfPresent(ticketId);
+        if (ticket == null || !ticket.getUserId().equals(userId)) {
+            throw new NotFoundException("Билет " + ticketId + " не найден");
+        }
+        long timeout = Math.min(wait.toMillis(), properties.getMaxWait().toMillis());
+        if (ticket.getDone().isDone() || timeout <= 0) {
+            return CompletableFuture.completedFuture(ticket.toDto());
+        }
+        return ticket.getDone().copy()
+                .completeOnTimeout(ticket, timeout, TimeUnit.MILLISECONDS)
+                .thenApply(AdmissionTicket::toDto);
+    }
+
+    public void evictHighDemand(Long eventId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    highDemand.invalidate(eventId);
+                }
+            });
+        } else {
+            highDemand.invalidate(eventId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void schedule(Lane lane, long delayNanos) {
+        if (lane.scheduled.compareAndSet(false, true)) {
+            workers.schedule(() -> drain(lane), delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void drain(Lane lane) {
+        long delay = 0;
+        try {
+            lane.refill();
+            int permits = (int) Math.min(lane.tokens, properties.getBatchSize());
+            if (permits > 0) {
+                List<AdmissionTicket> batch = new ArrayList<>(permits);
+                lane.queue.drainTo(batch, permits);
+                lane.tokens -= batch.size();
+                process(lane.eventId, batch);
+            }
+            if (lane.tokens < 1) {
+                delay = (long) ((1 - lane.tokens) / properties.getRate() * TimeUnit.SECONDS.toNanos(1));
+            }
+        } catch (Exception e) {
+            log.error("Ошибка обработчика очереди заявок события {}", lane.eventId, e);
+        } finally {
+            lane.touch();
+            lane.scheduled.set(false);
+        }
+        if (!lane.queue.isEmpty()) {
+            schedule(lane, delay);
+        }
+    }
+
+    private void retireIdleLanes() {
+        long idleNanos = idleTimeout().toNanos();
+        long now = System.nanoTime();
+        for (Long eventId : lanes.keySet()) {
+            lanes.computeIfPresent(eventId, (id, lane) ->
+                    lane.queue.isEmpty() && !lane.scheduled.get() && now - lane.touchedAt >= idleNanos ? null : lane);
+        }
+    }
+
+    /**
+     * Не меньше времени полного пополнения корзины, чтобы новая очередь с полной корзиной не обходила rate.
+     */
+    private Duration idleTimeout() {
+        Duration refill = Duration.ofNanos(
+                (long) (properties.getBurst() / properties.getRate() * TimeUnit.SECONDS.toNanos(1)));
+        return properties.getLaneIdleTimeout().compareTo(refill) >= 0 ? properties.getLaneIdleTimeout() : refill;
+    }
+
+    private void process(Long eventId, List<AdmissionTicket> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<AdmissionDecision> decisions;
+        try {
+            decisions = eventRequestService.admit(eventId, batch.stream().map(AdmissionTicket::getUserId).toList());
+        } catch (Exception e) {
+            log.warn("Пачка заявок события {} не обработана ({}), заявки обрабатываются по одной", eventId, e.getMessage());
+            decisions = batch.stream().map(ticket -> admitOne(ticket.getUserId(), eventId)).toList();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            AdmissionTicket ticket = batch.get(i);
+            AdmissionDecision decision = decisions.get(i);
+            ticket.complete(decision);
+            tickets.put(ticket.getId(), ticket);
+            queuedByRequester.remove(eventId + ":" + ticket.getUserId(), ticket);
+            (decision.request() != null ? admitted : rejected).increment();
+        }
+    }
+
+    private AdmissionDecision admitOne(Long userId, Long eventId) {
+        try {
+            return AdmissionDecision.admitted(eventRequestService.create(userId, eventId));
+        } catch (RuntimeException e) {
+            return AdmissionDecision.rejected(userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Очередь и корзина токенов одного события. Токены меняет только рабочий поток, который держит scheduled.
+     */
+    private final class Lane {
+        final Long eventId;
+        final BlockingQueue<AdmissionTicket> queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        double tokens = properties.getBurst();
+        long refilledAt = System.nanoTime();
+        volatile long touchedAt = refilledAt;
+
+        Lane(Long eventId) {
+            this.eventId = eventId;
+        }
+
+        void touch() {
+            touchedAt = System.nanoTime();
+        }
+
+        void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(properties.getBurst(),
+                    tokens + (now - refilledAt) * properties.getRate() / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+        }
+    }
+}
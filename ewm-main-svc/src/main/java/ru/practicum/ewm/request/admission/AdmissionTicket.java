@@ -0,0 +1,52 @@
+package ru.practicum.ewm.request.admission;
+
+import lombok.Getter;
+import ru.practicum.ewm.enums.AdmissionState;
+import ru.practicum.ewm.request.dto.AdmissionTicketDto;
+import ru.practicum.ewm.request.dto.ParticipationRequestDto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Заявка, ожидающая в очереди допуска. Итог выставляется один раз рабочим потоком события,
+ * ожидающие клиенты подписываются на done.
+ */
+@Getter
+class AdmissionTicket {
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long eventId;
+    private final Long userId;
+    private final LocalDateTime created = LocalDateTime.now();
+    private final CompletableFuture<AdmissionTicket> done = new CompletableFuture<>();
+
+    private volatile AdmissionState state = AdmissionState.QUEUED;
+    private volatile ParticipationRequestDto request;
+    private volatile String error;
+
+    AdmissionTicket(Long eventId, Long userId) {
+        this.eventId = eventId;
+        this.userId = userId;
+    }
+
+    void complete(AdmissionDecision decision) {
+        request = decision.request();
+        error = decision.error();
+        state = request != null ? AdmissionState.ADMITTED : AdmissionState.REJECTED;
+        done.complete(this);
+    }
+
+    AdmissionTicketDto toDto() {
+        return AdmissionTicketDto.builder()
+                .ticket(id)
+                .event(eventId)
+                .requester(userId)
+                .state(state)
+                .created(created)
+                .request(request)
+                .error(error)
+                .build();
+    }
+}
@@ -1,16 +1,28 @@
 package ru.practicum.ewm.request.controller;
 
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.ewm.enums.ExportFormat;
+import ru.practicum.ewm.enums.RequestStatus;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.request.admission.AdmissionQueue;
+import ru.practicum.ewm.request.dto.AdmissionTicketDto;
 import ru.practicum.ewm.request.dto.EventRequestStatusUpdateRequest;
 import ru.practicum.ewm.request.dto.EventRequestStatusUpdateResult;
 import ru.practicum.ewm.request.dto.ParticipationRequestDto;
 import ru.practicum.ewm.request.service.EventRequestService;
 
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -19,15 +31,34 @@ import java.util.List;
 public class EventRequestPrivateController {
 
     private final EventRequestService eventRequestService;
+    private final AdmissionQueue admissionQueue;
 
+    /**
+     * Для события с флагом high-demand заявка ставится в очередь: ответ 202 с билетом,
+     * итог можно получить по адресу из заголовка Location.
+     */
     @PostMapping("/requests")
-    @ResponseStatus(HttpStatus.CREATED)
-    public ParticipationRequestDto create(@PathVariable @Positive Long userId,
-                                          @RequestParam @Positive Long eventId) {
+    public ResponseEntity<Object> create(@PathVariable @Positive Long userId,
+                                         @RequestParam @Positive Long eventId) {
         log.info("POST запрос /users/{}/requests?eventId={}", userId, eventId);
+        Optional<AdmissionTicketDto> ticket = admissionQueue.submitIfHighDemand(userId, eventId);
+        if (ticket.isPresent()) {
+            log.info("Заявка поставлена в очередь: {}", ticket.get().getTicket());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/users/" + userId + "/requests/tickets/" + ticket.get().getTicket()))
+                    .body(ticket.get());
+        }
         ParticipationRequestDto createdRequest = eventRequestService.create(userId, eventId);
         log.info("Создан запрос на участие: {}", createdRequest);
-        return createdRequest;
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdRequest);
+    }
+
+    @GetMapping("/requests/tickets/{ticketId}")
+    public CompletableFuture<AdmissionTicketDto> getTicket(@PathVariable @Positive Long userId,
+                                                           @PathVariable String ticketId,
+                                                           @RequestParam(defaultValue = "0") @PositiveOrZero int wait) {
+        log.info("GET запрос /users/{}/requests/tickets/{}?wait={}", userId, ticketId, wait);
+        return admissionQueue.await(userId, ticketId, Duration.ofSeconds(wait));
     }
 
     @PatchMapping("/requests/{requestId}/cancel")
@@ -39,21 +70,56 @@ public class EventRequestPrivateController {
         return cancelledRequest;
     }
 
+    /**
+     * Без size и cursor отдаётся весь список, как до появления пагинации; с size — страница и курсор следующей
+     * в заголовке X-Next-Cursor.
+     */
     @GetMapping("/requests")
-    public List<ParticipationRequestDto> getParticipationRequests(@PathVariable @Positive Long userId) {
-        log.info("GET запрос /users/{}/requests", userId);
-        List<ParticipationRequestDto> requests = eventRequestService.getParticipationRequests(userId);
-        log.info("Получены запросы на участие: {}", requests);
-        return requests;
+    public ResponseEntity<List<ParticipationRequestDto>> getParticipationRequests(
+            @PathVariable @Positive Long userId,
+            @RequestParam(required = false) RequestStatus status,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(required = false) @Positive Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.info("GET запрос /users/{}/requests?status={}&from={}&size={}&cursor={}", userId, status, from, size, cursor);
+        CursorPage<ParticipationRequestDto> requests = eventRequestService.getParticipationRequests(userId, status,
+                from, size, cursor);
+        log.info("Получены запросы на участие: {}", requests.items().size());
+        return requests.toResponseEntity();
     }
 
+    /**
+     * Без size и cursor отдаётся весь список, как до появления пагинации; с size — страница и курсор следующей
+     * в заголовке X-Next-Cursor.
+     */
     @GetMapping("/events/{eventId}/requests")
-    public List<ParticipationRequestDto> getParticipationRequestsForUserEvent(@PathVariable @Positive Long userId,
-                                                                              @PathVariable @Positive Long eventId) {
-        log.info("GET запрос /users/{}/events/{}/requests", userId, eventId);
-        List<ParticipationRequestDto> requests = eventRequestService.getParticipationRequestsForUserEvent(userId, eventId);
-        log.info("Получены запросы на участие в событии: {}", requests);
-        return requests;
+    public ResponseEntity<List<ParticipationRequestDto>> getParticipationRequestsForUserEvent(
+            @PathVariable @Positive Long userId,
+            @PathVariable @Positive Long eventId,
+            @RequestParam(required = false) RequestStatus status,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(required = false) @Positive Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.info("GET запрос /users/{}/events/{}/requests?status={}&from={}&size={}&cursor={}",
+                userId, eventId, status, from, size, cursor);
+        CursorPage<ParticipationRequestDto> requests = eventRequestService.getParticipationRequestsForUserEvent(userId,
+                eventId, status, from, size, cursor);
+        log.info("Получены запросы на участие в событии: {}", requests.items().size());
+        return requests.toResponseEntity();
+    }
+
+    @GetMapping("/events/{eventId}/requests/export")
+    public ResponseEntity<StreamingResponseBody> exportParticipants(
+            @PathVariable @Positive Long userId,
+            @PathVariable @Positive Long eventId,
+            @RequestParam(defaultValue = "CONFIRMED") RequestStatus status,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.info("GET запрос /users/{}/events/{}/requests/export?status={}&format={}", userId, eventId, status, format);
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody body = eventRequestService.exportParticipants(userId, eventId, status, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(body);
     }
 
     @PatchMapping("/events/{eventId}/requests")
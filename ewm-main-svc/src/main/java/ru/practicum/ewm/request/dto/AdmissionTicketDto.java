@@ -0,0 +1,30 @@
+package ru.practicum.ewm.request.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.ewm.enums.AdmissionState;
+
+import java.time.LocalDateTime;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionTicketDto {
+    String ticket;
+    Long event;
+    Long requester;
+    AdmissionState state;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    LocalDateTime created;
+    /**
+     * Созданная заявка, если state = ADMITTED.
+     */
+    ParticipationRequestDto request;
+    /**
+     * Причина отказа, если state = REJECTED.
+     */
+    String error;
+}
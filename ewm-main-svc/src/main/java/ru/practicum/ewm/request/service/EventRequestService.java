@@ -1,5 +1,10 @@
 package ru.practicum.ewm.request.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.ewm.enums.ExportFormat;
+import ru.practicum.ewm.enums.RequestStatus;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.request.admission.AdmissionDecision;
 import ru.practicum.ewm.request.dto.EventRequestStatusUpdateRequest;
 import ru.practicum.ewm.request.dto.EventRequestStatusUpdateResult;
 import ru.practicum.ewm.request.dto.ParticipationRequestDto;
@@ -12,9 +17,18 @@ public interface EventRequestService {
 
     ParticipationRequestDto cancelRequest(Long userId, Long requestId);
 
-    List<ParticipationRequestDto> getParticipationRequests(Long userId);
+    CursorPage<ParticipationRequestDto> getParticipationRequests(Long userId, RequestStatus status,
+                                                                 int from, Integer size, String cursor);
 
-    List<ParticipationRequestDto> getParticipationRequestsForUserEvent(Long userId, Long eventId);
+    CursorPage<ParticipationRequestDto> getParticipationRequestsForUserEvent(Long userId, Long eventId, RequestStatus status,
+                                                                             int from, Integer size, String cursor);
+
+    StreamingResponseBody exportParticipants(Long userId, Long eventId, RequestStatus status, ExportFormat format);
+
+    /**
+     * Создаёт заявки пачки из очереди допуска одной транзакцией; решения возвращаются в порядке userIds.
+     */
+    List<AdmissionDecision> admit(Long eventId, List<Long> userIds);
 
     EventRequestStatusUpdateResult updateStatus(Long userId, Long eventId,
                                                 EventRequestStatusUpdateRequest dto);
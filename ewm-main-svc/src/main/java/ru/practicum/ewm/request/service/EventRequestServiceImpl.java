@@ -1,12 +1,20 @@
 package ru.practicum.ewm.request.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.enums.ExportFormat;
 import ru.practicum.ewm.enums.RequestStatus;
 import ru.practicum.ewm.event.EventRepository;
 import ru.practicum.ewm.event.model.Event;
@@ -14,19 +22,32 @@ import ru.practicum.ewm.exception.ConflictException;
 import ru.practicum.ewm.exception.DuplicatedDataException;
 import ru.practicum.ewm.exception.ForbiddenException;
 import ru.practicum.ewm.exception.NotFoundException;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursors;
 import ru.practicum.ewm.request.EventRequestRepository;
+import ru.practicum.ewm.request.admission.AdmissionDecision;
 import ru.practicum.ewm.request.dto.EventRequestStatusUpdateRequest;
 import ru.practicum.ewm.request.dto.EventRequestStatusUpdateResult;
 import ru.practicum.ewm.request.dto.ParticipationRequestDto;
 import ru.practicum.ewm.request.mapper.EventRequestMapper;
 import ru.practicum.ewm.request.model.EventRequest;
+import ru.practicum.ewm.request.waitlist.WaitlistPromoter;
 import ru.practicum.ewm.user.UserRepository;
 import ru.practicum.ewm.user.model.User;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -35,9 +56,15 @@ import java.util.stream.Collectors;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class EventRequestServiceImpl implements EventRequestService {
 
+    private static final Sort SORT = Sort.by(Sort.Direction.ASC, "id");
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
     UserRepository userRepository;
     EventRepository eventRepository;
     EventRequestRepository eventRequestRepository;
+    WaitlistPromoter waitlistPromoter;
+    TransactionTemplate transactionTemplate;
+    ObjectMapper objectMapper;
 
     @Override
     public ParticipationRequestDto create(Long userId, Long eventId) {
@@ -61,13 +88,21 @@ public class EventRequestServiceImpl implements EventRequestService {
             throw new DuplicatedDataException("Нельзя участвовать в неопубликованном событии.");
         }
 
-        if (event.getParticipantLimit() != 0 &&
-                eventRequestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED) >= event.getParticipantLimit()) {
-            throw new DuplicatedDataException("Достигнут лимит участников.");
+        // Заявка на заполненное событие встаёт в лист ожидания, а не отклоняется: повторять её не нужно
+        boolean full = event.getParticipantLimit() != 0 && event.getConfirmedRequests() >= event.getParticipantLimit();
+        RequestStatus status;
+        if (!event.getRequestModeration() || event.getParticipantLimit() == 0) {
+            status = !full && eventRepository.reserveSeats(eventId, 1) > 0
+                    ? RequestStatus.CONFIRMED : RequestStatus.WAITLISTED;
+        } else {
+            status = full || eventRequestRepository.existsByEventIdAndStatus(eventId, RequestStatus.WAITLISTED)
+                    ? RequestStatus.WAITLISTED : RequestStatus.PENDING;
+        }
+        // В очередь при свободных местах заявка встаёт только за чужим листом ожидания: проход промоутера
+        // мог уже пройти мимо события, поэтому событие ставится в очередь заново
+        if (status == RequestStatus.WAITLISTED && !full) {
+            waitlistPromoter.schedule(eventId);
         }
-
-        RequestStatus status = (!event.getRequestModeration() || event.getParticipantLimit() == 0)
-                ? RequestStatus.CONFIRMED : RequestStatus.PENDING;
 
         EventRequest request = EventRequest.builder()
                 .event(event)
@@ -81,6 +116,72 @@ public class EventRequestServiceImpl implements EventRequestService {
         return EventRequestMapper.toRequestDto(savedRequest);
     }
 
+    @Override
+    public List<AdmissionDecision> admit(Long eventId, List<Long> userIds) {
+        log.info("Обработка пачки заявок из очереди: eventId = {}, заявок = {}", eventId, userIds.size());
+
+        Optional<Event> found = eventRepository.findByIdForUpdate(eventId);
+        String eventError = found.isEmpty() ? "Событие c ID " + eventId + " не найдено"
+                : found.get().getState() != EventState.PUBLISHED ? "Нельзя участвовать в неопубликованном событии." : null;
+        if (eventError != null) {
+            return userIds.stream().map(userId -> AdmissionDecision.rejected(userId, eventError)).toList();
+        }
+        Event event = found.get();
+
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Set<Long> requesters = new HashSet<>(eventRequestRepository.findRequesterIds(eventId, userIds));
+        boolean autoConfirm = !event.getRequestModeration() || event.getParticipantLimit() == 0;
+        boolean waitlist = eventRequestRepository.existsByEventIdAndStatus(eventId, RequestStatus.WAITLISTED);
+        long free = event.getParticipantLimit() == 0 ? Long.MAX_VALUE
+                : event.getParticipantLimit() - event.getConfirmedRequests();
+
+        List<AdmissionDecision> decisions = new ArrayList<>(userIds.size());
+        List<EventRequest> created = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Long userId : userIds) {
+            User user = users.get(userId);
+            if (user == null) {
+                decisions.add(AdmissionDecision.rejected(userId, "Пользователь c ID " + userId + " не найден"));
+            } else if (event.getInitiator().getId().equals(userId)) {
+                decisions.add(AdmissionDecision.rejected(userId, "Инициатор не может подавать заявку на своё событие."));
+            } else if (!requesters.add(userId)) {
+                decisions.add(AdmissionDecision.rejected(userId, "Пользователь уже подал заявку на это событие."));
+            } else {
+                RequestStatus status;
+                if (autoConfirm) {
+                    status = !waitlist && free > 0 ? RequestStatus.CONFIRMED : RequestStatus.WAITLISTED;
+                } else {
+                    status = !waitlist && free > 0 ? RequestStatus.PENDING : RequestStatus.WAITLISTED;
+                }
+                if (status == RequestStatus.CONFIRMED) {
+                    free--;
+                }
+                created.add(EventRequest.builder()
+                        .event(event)
+                        .requester(user)
+                        .created(now)
+                        .status(status)
+                        .build());
+                decisions.add(null);
+            }
+        }
+
+        eventRequestRepository.saveAll(created);
+        if (free > 0 && created.stream().anyMatch(request -> request.getStatus() == RequestStatus.WAITLISTED)) {
+            waitlistPromoter.schedule(eventId);
+        }
+        long confirmed = created.stream().filter(request -> request.getStatus() == RequestStatus.CONFIRMED).count();
+        if (confirmed > 0) {
+            eventRepository.addConfirmedRequests(eventId, confirmed);
+        }
+        Iterator<EventRequest> saved = created.iterator();
+        decisions.replaceAll(decision -> decision != null ? decision
+                : AdmissionDecision.admitted(EventRequestMapper.toRequestDto(saved.next())));
+        log.info("Из очереди создано заявок: {}, подтверждено: {}", created.size(), confirmed);
+        return decisions;
+    }
+
     @Override
     public ParticipationRequestDto cancelRequest(Long userId, Long requestId) {
         log.info("Отмена запроса на участие: userId = {}, requestId = {}", userId, requestId);
@@ -88,43 +189,85 @@ public class EventRequestServiceImpl implements EventRequestService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь c ID " + userId + " не найден"));
 
-        EventRequest request = eventRequestRepository.findById(requestId)
+        // Блокировка строки заявки: параллельная отмена той же заявки дождётся коммита и увидит статус CANCELED,
+        // поэтому место освобождается ровно один раз
+        EventRequest request = eventRequestRepository.findByIdForUpdate(requestId)
                 .orElseThrow(() -> new NotFoundException("Запрос не найден."));
 
         if (!request.getRequester().getId().equals(userId)) {
             throw new ForbiddenException("Можно отменить только собственный запрос.");
         }
 
+        if (request.getStatus() == RequestStatus.CONFIRMED) {
+            eventRepository.addConfirmedRequests(request.getEvent().getId(), -1);
+        }
+        if (request.getStatus() == RequestStatus.CONFIRMED || request.getStatus() == RequestStatus.PENDING) {
+            waitlistPromoter.schedule(request.getEvent().getId());
+        }
         request.setStatus(RequestStatus.CANCELED);
         EventRequest savedRequest = eventRequestRepository.save(request);
         return EventRequestMapper.toRequestDto(savedRequest);
     }
 
     @Override
-    public List<ParticipationRequestDto> getParticipationRequests(Long userId) {
-        log.info("Получение запросов пользователя: userId = {}", userId);
+    @Transactional(readOnly = true)
+    public CursorPage<ParticipationRequestDto> getParticipationRequests(Long userId, RequestStatus status,
+                                                                        int from, Integer size, String cursor) {
+        log.info("Получение запросов пользователя: userId = {}, status = {}", userId, status);
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь c ID " + userId + " не найден"));
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь c ID " + userId + " не найден");
+        }
 
-        return eventRequestRepository.findByRequesterId(userId).stream()
-                .map(EventRequestMapper::toRequestDto)
-                .collect(Collectors.toList());
+        ScrollPosition position = PageCursors.position(cursor, from, SORT);
+        Window<EventRequest> requests = (status != null)
+                ? eventRequestRepository.findByRequesterIdAndStatus(userId, status, position, limit(size, cursor), SORT)
+                : eventRequestRepository.findByRequesterId(userId, position, limit(size, cursor), SORT);
+        return PageCursors.page(requests, SORT).map(EventRequestMapper::toRequestDto);
     }
 
     @Override
-    public List<ParticipationRequestDto> getParticipationRequestsForUserEvent(Long userId, Long eventId) {
-        log.info("Получение заявок на своё событие: userId = {}, eventId = {}", userId, eventId);
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь c ID " + userId + " не найден"));
-
-        Event event = eventRepository.findByIdAndInitiatorId(eventId, userId)
-                .orElseThrow(() -> new ForbiddenException("Пользователь не инициатор события."));
+    @Transactional(readOnly = true)
+    public CursorPage<ParticipationRequestDto> getParticipationRequestsForUserEvent(Long userId, Long eventId,
+                                                                                    RequestStatus status,
+                                                                                    int from, Integer size, String cursor) {
+        log.info("Получение заявок на своё событие: userId = {}, eventId = {}, status = {}", userId, eventId, status);
+
+        checkInitiator(userId, eventId);
+
+        ScrollPosition position = PageCursors.position(cursor, from, SORT);
+        Window<EventRequest> requests = (status != null)
+                ? eventRequestRepository.findByEventIdAndStatus(eventId, status, position, limit(size, cursor), SORT)
+                : eventRequestRepository.findByEventId(eventId, position, limit(size, cursor), SORT);
+        return PageCursors.page(requests, SORT).map(EventRequestMapper::toRequestDto);
+    }
 
-        return eventRequestRepository.findByEvent(event).stream()
-                .map(EventRequestMapper::toRequestDto)
-                .collect(Collectors.toList());
+    /**
+     * Права проверяются сразу, чтобы ошибка вернулась обычным ответом; строки читаются уже при записи тела
+     * в отдельной транзакции и сразу уходят в поток, не накапливаясь в памяти.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public StreamingResponseBody exportParticipants(Long userId, Long eventId, RequestStatus status, ExportFormat format) {
+        log.info("Выгрузка участников события: userId = {}, eventId = {}, status = {}, format = {}",
+                userId, eventId, status, format);
+
+        checkInitiator(userId, eventId);
+
+        return out -> transactionTemplate.executeWithoutResult(tx -> {
+            long exported = 0;
+            try (Stream<ParticipationRequestDto> requests = eventRequestRepository.streamByEventIdAndStatus(eventId, status)) {
+                ParticipantExportWriter writer = new ParticipantExportWriter(out, format, objectMapper);
+                for (ParticipationRequestDto request : (Iterable<ParticipationRequestDto>) requests::iterator) {
+                    writer.write(request);
+                    exported++;
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.info("Выгрузка участников события {} завершена, заявок: {}", eventId, exported);
+        });
     }
 
     @Override
@@ -134,58 +277,76 @@ public class EventRequestServiceImpl implements EventRequestService {
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь c ID " + userId + " не найден"));
-        Event event = eventRepository.findById(eventId)
+        // Блокировка строки события не даёт заявкам, подтверждённым автоматически, занять места параллельно с модерацией
+        Event event = eventRepository.findByIdForUpdate(eventId)
                 .orElseThrow(() -> new NotFoundException("Событие c ID " + eventId + " не найдено"));
 
-        List<EventRequest> requests = eventRequestRepository.findAllById(dto.getRequestIds());
         EventRequestStatusUpdateResult result = EventRequestStatusUpdateResult.builder()
                 .confirmedRequests(new ArrayList<>())
                 .rejectedRequests(new ArrayList<>())
                 .build();
 
-        if (requests.isEmpty()) {
+        List<Long> requestIds = dto.getRequestIds();
+        if (requestIds == null || requestIds.isEmpty()) {
             return result;
         }
+        if (eventRequestRepository.existsByIdInAndEventIdNot(requestIds, eventId)) {
+            throw new NotFoundException("Запрос не относится к данному событию.");
+        }
+        if (eventRequestRepository.existsByIdInAndStatusNot(requestIds, RequestStatus.PENDING)) {
+            throw new ConflictException("Изменять можно только заявки в статусе PENDING.");
+        }
 
         RequestStatus targetStatus = RequestStatus.valueOf(String.valueOf(dto.getStatus()));
 
-        int limit = event.getParticipantLimit();
-        long confirmed = eventRequestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED);
-
         if (targetStatus == RequestStatus.CONFIRMED) {
-            if (limit != 0 && confirmed >= limit) {
+            int limit = event.getParticipantLimit();
+            long free = limit == 0 ? requestIds.size() : limit - event.getConfirmedRequests();
+            if (free <= 0) {
                 throw new ConflictException("Достигнут лимит участников.");
             }
 
-            for (EventRequest request : requests) {
-                if (!request.getEvent().getId().equals(eventId)) {
-                    throw new NotFoundException("Запрос не относится к данному событию.");
-                }
-                if (request.getStatus() != RequestStatus.PENDING) {
-                    throw new ConflictException("Изменять можно только заявки в статусе PENDING.");
-                }
-                request.setStatus(RequestStatus.CONFIRMED);
-                result.getConfirmedRequests().add(EventRequestMapper.toRequestDto(request));
-                confirmed++;
-                if (confirmed == limit) {
-                    break;
-                }
+            int confirmed = eventRequestRepository.confirmPending(eventId, requestIds, free);
+            if (confirmed > 0) {
+                eventRepository.addConfirmedRequests(eventId, confirmed);
+            }
+            if (limit != 0 && confirmed == free) {
+                int rejected = eventRequestRepository.rejectAllPending(eventId);
+                log.info("Лимит участников события {} исчерпан, отклонено заявок: {}", eventId, rejected);
             }
-
         } else if (targetStatus == RequestStatus.REJECTED) {
-            for (EventRequest request : requests) {
-                if (!request.getEvent().getId().equals(eventId)) {
-                    throw new NotFoundException("Запрос не относится к данному событию.");
-                }
-                if (request.getStatus() != RequestStatus.PENDING) {
-                    throw new ConflictException("Изменять можно только заявки в статусе PENDING.");
-                }
-                request.setStatus(RequestStatus.REJECTED);
-                result.getRejectedRequests().add(EventRequestMapper.toRequestDto(request));
+            if (eventRequestRepository.rejectPending(eventId, requestIds) > 0) {
+                waitlistPromoter.schedule(eventId);
             }
         }
 
-        eventRequestRepository.saveAll(requests);
+        for (EventRequest request : eventRequestRepository.findByIdInOrderByIdAsc(requestIds)) {
+            if (request.getStatus() == RequestStatus.CONFIRMED) {
+                result.getConfirmedRequests().add(EventRequestMapper.toRequestDto(request));
+            } else if (request.getStatus() == RequestStatus.REJECTED) {
+                result.getRejectedRequests().add(EventRequestMapper.toRequestDto(request));
+            }
+        }
         return result;
     }
-}
\ No newline at end of file
+
+    private void checkInitiator(Long userId, Long eventId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь c ID " + userId + " не найден");
+        }
+        if (eventRepository.findByIdAndInitiatorId(eventId, userId).isEmpty()) {
+            throw new ForbiddenException("Пользователь не инициатор события.");
+        }
+    }
+
+    /**
+     * Без size и cursor список отдаётся целиком, как до появления пагинации; с курсором без size — страницами
+     * по умолчанию.
+     */
+    private static Limit limit(Integer size, String cursor) {
+        if (size != null) {
+            return Limit.of(size);
+        }
+        return cursor == null ? Limit.unlimited() : Limit.of(DEFAULT_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.ewm.request.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.practicum.ewm.enums.ExportFormat;
+import ru.practicum.ewm.request.dto.ParticipationRequestDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+class ParticipantExportWriter {
+
+    private static final String CSV_HEADER = "id,event,requester,status,created\n";
+    private static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+    private final ExportFormat format;
+    private final ObjectMapper objectMapper;
+
+    ParticipantExportWriter(OutputStream out, ExportFormat format, ObjectMapper objectMapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+    }
+
+    void write(ParticipationRequestDto request) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(request));
+        } else {
+            writer.write(String.valueOf(request.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(request.getEvent()));
+            writer.write(',');
+            writer.write(String.valueOf(request.getRequester()));
+            writer.write(',');
+            writer.write(request.getStatus().name());
+            writer.write(',');
+            writer.write(CREATED_FORMAT.format(request.getCreated()));
+        }
+        writer.write('\n');
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.ewm.request.waitlist;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.enums.RequestStatus;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.request.EventRequestRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Переводит заявки из листа ожидания в порядке подачи, когда у события освобождаются места.
+ * События попадают в очередь после коммита отмены заявки или увеличения лимита, а при старте —
+ * все события с непустым листом ожидания. За один проход по событию переводится не больше batch-size заявок,
+ * остаток обрабатывается следующим проходом.
+ */
+@Slf4j
+@Component
+public class WaitlistPromoter {
+
+    private final EventRepository eventRepository;
+    private final EventRequestRepository eventRequestRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Counter promoted;
+
+    private final Set<Long> pendingEvents = ConcurrentHashMap.newKeySet();
+
+    public WaitlistPromoter(EventRepository eventRepository,
+                            EventRequestRepository eventRequestRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${requests.waitlist.batch-size:100}") int batchSize,
+                            MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.eventRequestRepository = eventRequestRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.promoted = meterRegistry.counter("requests.waitlist.promoted");
+    }
+
+    public void schedule(Long eventId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingEvents.add(eventId);
+                }
+            });
+        } else {
+            pendingEvents.add(eventId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleWaitlisted() {
+        pendingEvents.addAll(eventRequestRepository.findEventIdsByStatus(RequestStatus.WAITLISTED));
+    }
+
+    @Scheduled(fixedDelayString = "${requests.waitlist.promotion-interval:PT1S}")
+    public void promote() {
+        List<Long> eventIds = new ArrayList<>(pendingEvents);
+        pendingEvents.removeAll(eventIds);
+        for (Long eventId : eventIds) {
+            try {
+                Integer moved = transactionTemplate.execute(status -> promote(eventId));
+                if (moved != null && moved == batchSize) {
+                    pendingEvents.add(eventId);
+                }
+            } catch (Exception e) {
+                pendingEvents.add(eventId);
+                log.warn("Не удалось перевести заявки из листа ожидания события {}: {}", eventId, e.getMessage());
+            }
+        }
+    }
+
+    private int promote(Long eventId) {
+        Event event = eventRepository.findByIdForUpdate(eventId).orElse(null);
+        if (event == null || event.getState() != EventState.PUBLISHED) {
+            return 0;
+        }
+        int limit = event.getParticipantLimit();
+        // при модерации место занимает только подтверждённая заявка, поэтому заявка возвращается на рассмотрение,
+        // а свободные места уменьшаются на уже ожидающие рассмотрения заявки
+        boolean confirm = !event.getRequestModeration() || limit == 0;
+        long free = limit == 0 ? batchSize : limit - event.getConfirmedRequests();
+        if (!confirm) {
+            free -= eventRequestRepository.countByEventIdAndStatus(eventId, RequestStatus.PENDING);
+        }
+        free = Math.min(free, batchSize);
+        if (free <= 0) {
+            return 0;
+        }
+        int moved = eventRequestRepository.promoteWaitlisted(eventId,
+                (confirm ? RequestStatus.CONFIRMED : RequestStatus.PENDING).name(), free);
+        if (confirm && moved > 0) {
+            eventRepository.addConfirmedRequests(eventId, moved);
+        }
+        if (moved > 0) {
+            promoted.increment(moved);
+            log.info("Из листа ожидания события {} переведено заявок: {}", eventId, moved);
+        }
+        return moved;
+    }
+}
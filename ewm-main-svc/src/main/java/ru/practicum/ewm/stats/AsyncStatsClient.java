@@ -1,13 +1,23 @@
 package ru.practicum.ewm.stats;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import ru.practicum.ewm.stats.spool.HitSpool;
 import ru.practicum.stat.EndpointHitCreateDto;
 import ru.practicum.stat.StatisticsClient;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 @Service
 @Slf4j
@@ -15,25 +25,140 @@ public class AsyncStatsClient {
 
     private final StatisticsClient delegate;
     private final String appName;
+    private final StatsBufferProperties properties;
+    private final HitSpool spool;
+    private final HitRingBuffer<EndpointHitCreateDto> buffer;
+
+    private final Counter droppedOldest;
+    private final Counter droppedNewest;
+    private final Counter sent;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread drainer;
 
     public AsyncStatsClient(StatisticsClient delegate,
-                            @Value("${app.name}") String appName) {
+                            @Value("${app.name}") String appName,
+                            StatsBufferProperties properties,
+                            HitSpool spool,
+                            MeterRegistry meterRegistry) {
         this.delegate = delegate;
         this.appName = appName;
+        this.properties = properties;
+        this.spool = spool;
+        this.buffer = new HitRingBuffer<>(properties.getCapacity());
+
+        Gauge.builder("stats.hits.buffer.depth", buffer, HitRingBuffer::size)
+                .description("Количество хитов, ожидающих отправки в stats-server")
+                .register(meterRegistry);
+        Gauge.builder("stats.hits.buffer.capacity", buffer, HitRingBuffer::capacity)
+                .register(meterRegistry);
+        this.droppedOldest = Counter.builder("stats.hits.dropped")
+                .tag("policy", OverflowPolicy.DROP_OLDEST.name())
+                .register(meterRegistry);
+        this.droppedNewest = Counter.builder("stats.hits.dropped")
+                .tag("policy", OverflowPolicy.DROP_NEWEST.name())
+                .register(meterRegistry);
+        this.sent = Counter.builder("stats.hits.sent").register(meterRegistry);
+        this.failed = Counter.builder("stats.hits.failed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "stats-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("Запущена отправка хитов пакетами: ёмкость буфера {}, размер пакета {}, интервал {}",
+                buffer.capacity(), properties.getBatchSize(), properties.getFlushInterval());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(properties.getShutdownTimeout().toMillis());
+        if (drainer.isAlive()) {
+            log.warn("Не удалось дослать хиты за {}, в буфере осталось: {}",
+                    properties.getShutdownTimeout(), buffer.size());
+        }
     }
 
-    @Async("statsExecutor")
     public void sendHit(String uri, String ip) {
+        EndpointHitCreateDto dto = EndpointHitCreateDto.builder()
+                .app(appName)
+                .uri(uri)
+                .ip(ip)
+                .timestamp(LocalDateTime.now())
+                .build();
+
+        if (!buffer.offer(dto) && !handleOverflow(dto)) {
+            return;
+        }
+        if (buffer.size() >= properties.getBatchSize()) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private boolean handleOverflow(EndpointHitCreateDto dto) {
+        if (properties.getOverflowPolicy() == OverflowPolicy.DROP_OLDEST) {
+            if (buffer.poll() != null) {
+                droppedOldest.increment();
+            }
+            if (buffer.offer(dto)) {
+                return true;
+            }
+        }
+        droppedNewest.increment();
+        return false;
+    }
+
+    private void drainLoop() {
+        int batchSize = properties.getBatchSize();
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        long idleParkNanos = properties.getIdlePark().toNanos();
+
+        List<EndpointHitCreateDto> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+
+        while (running || buffer.size() > 0) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            boolean full = batch.size() >= batchSize;
+            boolean due = System.nanoTime() - lastFlush >= flushIntervalNanos;
+
+            if (!batch.isEmpty() && (full || due || !running)) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+                lastFlush = System.nanoTime();
+            } else if (!full) {
+                LockSupport.parkNanos(this, idleParkNanos);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+        log.info("Отправка хитов остановлена");
+    }
+
+    private void flush(List<EndpointHitCreateDto> batch) {
+        long startedAt = System.nanoTime();
+        try {
+            ResponseEntity<Object> response = delegate.createAll(batch);
+            if (response.getStatusCode().is2xxSuccessful()) {
+                sent.increment(batch.size());
+                log.debug("Отправлен пакет из {} хитов за {} мс", batch.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                return;
+            }
+            log.warn("stats-server не принял пакет из {} хитов: {}", batch.size(), response.getStatusCode());
+        } catch (Exception e) {
+            log.warn("Не удалось отправить пакет из {} хитов в stats-server: {}", batch.size(), e.getMessage());
+        }
+        failed.increment(batch.size());
         try {
-            EndpointHitCreateDto dto = EndpointHitCreateDto.builder()
-                    .app(appName)
-                    .uri(uri)
-                    .ip(ip)
-                    .timestamp(LocalDateTime.now())
-                    .build();
-            delegate.create(dto);
+            spool.append(batch);
         } catch (Exception e) {
-            log.warn("Не удалось отправить хит в stats-server: {}", e.getMessage());
+            log.error("Не удалось сохранить {} хитов в спул, они потеряны: {}", batch.size(), e.getMessage());
         }
     }
 }
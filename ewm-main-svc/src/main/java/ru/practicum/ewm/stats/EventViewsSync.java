@@ -0,0 +1,111 @@
+package ru.practicum.ewm.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.event.model.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Переносит просмотры опубликованных событий из stats-server в колонку events.views,
+ * чтобы фильтрация и ранжирование по просмотрам выполнялись в базе.
+ * Раз в interval синхронизируются только события, которые открывали через этот экземпляр с прошлого прохода;
+ * раз в full-interval проходятся все опубликованные события, чтобы подобрать просмотры, принятые другими
+ * экземплярами или доставленные в stats-server с задержкой.
+ */
+@Slf4j
+@Component
+public class EventViewsSync {
+
+    private static final String UPDATE_VIEWS_SQL = "UPDATE events SET views = ? WHERE id = ? AND views <> ?";
+
+    private final EventRepository eventRepository;
+    private final ViewCountService viewCountService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    private final Set<Long> viewedEvents = ConcurrentHashMap.newKeySet();
+
+    public EventViewsSync(EventRepository eventRepository,
+                          ViewCountService viewCountService,
+                          JdbcTemplate jdbcTemplate,
+                          @Value("${stats.views.sync.batch-size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.viewCountService = viewCountService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public void markViewed(Long eventId) {
+        viewedEvents.add(eventId);
+    }
+
+    @Scheduled(fixedDelayString = "${stats.views.sync.interval:PT1M}",
+            initialDelayString = "${stats.views.sync.interval:PT1M}")
+    public void sync() {
+        List<Long> eventIds = new ArrayList<>(viewedEvents);
+        viewedEvents.removeAll(eventIds);
+        int updated = 0;
+        for (int from = 0; from < eventIds.size(); from += batchSize) {
+            List<Long> batch = eventIds.subList(from, Math.min(from + batchSize, eventIds.size()));
+            try {
+                updated += updateViews(eventRepository.findAllById(batch));
+            } catch (Exception e) {
+                viewedEvents.addAll(batch);
+                log.warn("Синхронизация просмотров {} событий отложена: {}", batch.size(), e.getMessage());
+            }
+        }
+        if (updated > 0) {
+            log.info("Обновлены просмотры у {} событий", updated);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stats.views.sync.full-interval:PT6H}",
+            initialDelayString = "${stats.views.sync.initial-delay:PT30S}")
+    public void syncAll() {
+        long lastId = 0;
+        int updated = 0;
+        try {
+            while (true) {
+                List<Event> events = eventRepository.findByStateAndIdGreaterThanOrderByIdAsc(EventState.PUBLISHED,
+                        lastId, Limit.of(batchSize));
+                if (events.isEmpty()) {
+                    break;
+                }
+                updated += updateViews(events);
+                lastId = events.getLast().getId();
+            }
+        } catch (Exception e) {
+            log.warn("Полная синхронизация просмотров прервана на событии {}: {}", lastId, e.getMessage());
+        }
+        log.info("Полная синхронизация просмотров завершена, обновлено событий: {}", updated);
+    }
+
+    /**
+     * Записывает просмотры одним пакетом UPDATE; строки с неизменившимся значением не перезаписываются.
+     */
+    private int updateViews(List<Event> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (Map.Entry<Long, Long> entry : viewCountService.fetchViews(events).entrySet()) {
+            rows.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue()});
+        }
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPDATE_VIEWS_SQL, rows)) {
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+}
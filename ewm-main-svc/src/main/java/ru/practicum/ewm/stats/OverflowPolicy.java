@@ -0,0 +1,8 @@
+package ru.practicum.ewm.stats;
+
+public enum OverflowPolicy {
+    // при переполнении вытесняется самый старый хит
+    DROP_OLDEST,
+    // при переполнении отбрасывается новый хит
+    DROP_NEWEST
+}
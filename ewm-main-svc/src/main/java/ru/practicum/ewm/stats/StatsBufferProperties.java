@@ -0,0 +1,22 @@
+package ru.practicum.ewm.stats;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.buffer")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StatsBufferProperties {
+    int capacity = 8192;
+    int batchSize = 500;
+    Duration flushInterval = Duration.ofSeconds(1);
+    Duration idlePark = Duration.ofMillis(20);
+    Duration shutdownTimeout = Duration.ofSeconds(10);
+    OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+}
@@ -0,0 +1,29 @@
+package ru.practicum.ewm.stats;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.views.cache")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ViewCacheProperties {
+    long maxSize = 10_000;
+    Duration refreshAfter = Duration.ofSeconds(5);
+    Duration expireAfter = Duration.ofMinutes(1);
+    int refreshThreads = 2;
+    /**
+     * Сколько копятся устаревшие ключи перед общим обновлением: ключи одной страницы устаревают вместе
+     * и обновляются одним пакетным запросом.
+     */
+    Duration refreshBatchDelay = Duration.ofMillis(20);
+    /**
+     * Наибольшее число событий в одном пакетном запросе обновления, не больше stats.batch.max-items stats-server.
+     */
+    int refreshBatchSize = 500;
+}
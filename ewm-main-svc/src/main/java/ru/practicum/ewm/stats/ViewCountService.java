@@ -0,0 +1,22 @@
+package ru.practicum.ewm.stats;
+
+import ru.practicum.ewm.event.model.Event;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ViewCountService {
+
+    /**
+     * Уникальные просмотры событий по их каноническим uri {@code /events/{id}} с момента создания.
+     * Все события страницы запрашиваются одним обращением к stats-server; при ошибке просмотры считаются нулевыми.
+     */
+    Map<Long, Long> getViews(Collection<Event> events);
+
+    long getViews(Event event);
+
+    /**
+     * Просмотры напрямую из stats-server в обход кэша; ошибки stats-server пробрасываются вызывающему.
+     */
+    Map<Long, Long> fetchViews(Collection<Event> events);
+}
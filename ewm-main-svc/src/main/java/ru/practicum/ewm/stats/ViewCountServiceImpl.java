@@ -0,0 +1,187 @@
+package ru.practicum.ewm.stats;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.stat.StatisticsClient;
+import ru.practicum.stat.StatsBatchItemDto;
+import ru.practicum.stat.StatsBatchResultDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Просмотры читаются через ограниченный кэш по id события. После refresh-after значение отдаётся как есть,
+ * а обновление уходит в фоновый пул; параллельные обновления одного ключа Caffeine схлопывает в одно.
+ * Промахи страницы загружаются одним пакетным запросом к stats-server. Обновления устаревших ключей
+ * копятся refresh-batch-delay и тоже уходят одним пакетным запросом, а не запросом на каждое событие.
+ */
+@Service
+@Slf4j
+public class ViewCountServiceImpl implements ViewCountService {
+
+    private static final String EVENT_URI_PREFIX = "/events/";
+
+    private final StatisticsClient statisticsClient;
+    private final ViewCacheProperties properties;
+    private final ScheduledExecutorService refreshExecutor;
+    private final LoadingCache<EventViewsKey, Long> cache;
+    private final Map<EventViewsKey, CompletableFuture<Long>> pendingRefreshes = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    public ViewCountServiceImpl(StatisticsClient statisticsClient,
+                                ViewCacheProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.statisticsClient = statisticsClient;
+        this.properties = properties;
+        this.refreshExecutor = Executors.newScheduledThreadPool(properties.getRefreshThreads(),
+                Thread.ofPlatform().name("views-refresh-", 0).daemon().factory());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .refreshAfterWrite(properties.getRefreshAfter())
+                .expireAfterWrite(properties.getExpireAfter())
+                .executor(refreshExecutor)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Long load(EventViewsKey key) {
+                        return fetch(List.of(key)).get(key);
+                    }
+
+                    @Override
+                    public Map<EventViewsKey, Long> loadAll(Set<? extends EventViewsKey> keys) {
+                        return fetch(keys);
+                    }
+
+                    @Override
+                    public CompletableFuture<Long> asyncReload(EventViewsKey key, Long oldValue, Executor executor) {
+                        return scheduleRefresh(key);
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "event-views");
+    }
+
+    @Override
+    public Map<Long, Long> getViews(Collection<Event> events) {
+        List<EventViewsKey> keys = toKeys(events);
+        Map<Long, Long> views = new HashMap<>();
+        if (keys.isEmpty()) {
+            return views;
+        }
+        try {
+            cache.getAll(keys).forEach((key, value) -> views.put(key.eventId(), value));
+        } catch (Exception e) {
+            log.error("Ошибка при получении просмотров для событий {}: {}", keys, e.getMessage());
+        }
+        return views;
+    }
+
+    @Override
+    public long getViews(Event event) {
+        return getViews(List.of(event)).getOrDefault(event.getId(), event.getViews());
+    }
+
+    @Override
+    public Map<Long, Long> fetchViews(Collection<Event> events) {
+        Map<Long, Long> views = new HashMap<>();
+        fetch(toKeys(events)).forEach((key, value) -> views.put(key.eventId(), value));
+        return views;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private CompletableFuture<Long> scheduleRefresh(EventViewsKey key) {
+        CompletableFuture<Long> refresh = pendingRefreshes.computeIfAbsent(key, k -> new CompletableFuture<>());
+        if (refreshScheduled.compareAndSet(false, true)) {
+            refreshExecutor.schedule(this::refreshPending, properties.getRefreshBatchDelay().toNanos(),
+                    TimeUnit.NANOSECONDS);
+        }
+        return refresh;
+    }
+
+    private void refreshPending() {
+        // Флаг сбрасывается до выборки: ключ, добавленный во время обновления, запланирует следующий проход
+        refreshScheduled.set(false);
+        Map<EventViewsKey, CompletableFuture<Long>> batch = new HashMap<>();
+        for (EventViewsKey key : pendingRefreshes.keySet()) {
+            CompletableFuture<Long> refresh = pendingRefreshes.remove(key);
+            if (refresh != null) {
+                batch.put(key, refresh);
+            }
+        }
+        List<EventViewsKey> keys = new ArrayList<>(batch.keySet());
+        int batchSize = properties.getRefreshBatchSize();
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<EventViewsKey> chunk = keys.subList(from, Math.min(from + batchSize, keys.size()));
+            try {
+                Map<EventViewsKey, Long> views = fetch(chunk);
+                chunk.forEach(key -> batch.get(key).complete(views.get(key)));
+            } catch (Exception e) {
+                log.warn("Не удалось обновить просмотры {} событий: {}", chunk.size(), e.getMessage());
+                chunk.forEach(key -> batch.get(key).completeExceptionally(e));
+            }
+        }
+    }
+
+    private static List<EventViewsKey> toKeys(Collection<Event> events) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EventViewsKey> keys = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (event.getCreatedOn() != null && !event.getCreatedOn().isAfter(now)) {
+                keys.add(new EventViewsKey(event.getId(), event.getCreatedOn()));
+            }
+        }
+        return keys;
+    }
+
+    private Map<EventViewsKey, Long> fetch(Collection<? extends EventViewsKey> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        LocalDateTime end = LocalDateTime.now();
+        List<EventViewsKey> ordered = List.copyOf(keys);
+        List<StatsBatchItemDto> items = ordered.stream()
+                .map(key -> StatsBatchItemDto.builder()
+                        .uri(EVENT_URI_PREFIX + key.eventId())
+                        .start(key.createdOn())
+                        .end(end)
+                        .unique(true)
+                        .build())
+                .toList();
+        List<StatsBatchResultDto> results = statisticsClient.getStatsBatch(items);
+
+        Map<EventViewsKey, Long> views = new HashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            long hits = i < results.size() && results.get(i).getHits() != null ? results.get(i).getHits() : 0L;
+            views.put(ordered.get(i), hits);
+        }
+        return views;
+    }
+
+    /**
+     * Дата создания события неизменна, поэтому ключ фактически определяется id события.
+     */
+    private record EventViewsKey(long eventId, LocalDateTime createdOn) {
+    }
+}
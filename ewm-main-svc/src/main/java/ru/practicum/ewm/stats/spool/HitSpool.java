@@ -0,0 +1,285 @@
+package ru.practicum.ewm.stats.spool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stat.EndpointHitCreateDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Локальный спул хитов, которые не удалось доставить в stats-server.
+ * Хиты пишутся в сегменты фиксированного размера с монотонным seq; подтверждённый seq
+ * хранится в checkpoint-файле, а stats-server отбрасывает повторы по паре (source, seq).
+ * Хиты, которые stats-server отверг как некорректные, переносятся в dead-letter.ndjson того же каталога.
+ */
+@Slf4j
+@Component
+public class HitSpool {
+
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String SOURCE_FILE = "source-id";
+    private static final String DEAD_LETTER_FILE = "dead-letter.ndjson";
+
+    private final HitSpoolProperties properties;
+    private final String appName;
+    private final ObjectMapper objectMapper;
+    private final List<SpoolSegment> segments = new ArrayList<>();
+    private final Counter appended;
+    private final Counter dropped;
+    private final Counter rejected;
+
+    private Path directory;
+    private String source;
+    private long lastSeq;
+    private long ackedSeq;
+    private LocalDateTime oldestPending;
+
+    public HitSpool(HitSpoolProperties properties,
+                    @Value("${app.name}") String appName,
+                    ObjectMapper objectMapper,
+                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.appName = appName;
+        this.objectMapper = objectMapper;
+
+        Gauge.builder("stats.spool.backlog.records", this, HitSpool::getBacklog)
+                .description("Количество хитов в спуле, ещё не доставленных в stats-server")
+                .register(meterRegistry);
+        Gauge.builder("stats.spool.disk.bytes", this, HitSpool::getDiskUsage)
+                .register(meterRegistry);
+        Gauge.builder("stats.spool.replay.lag.seconds", this, HitSpool::getReplayLagSeconds)
+                .description("Возраст самого старого недоставленного хита")
+                .register(meterRegistry);
+        this.appended = Counter.builder("stats.spool.appended").register(meterRegistry);
+        this.dropped = Counter.builder("stats.spool.dropped")
+                .description("Хиты, удалённые из спула из-за превышения лимита диска")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("stats.spool.rejected")
+                .description("Хиты, отвергнутые stats-server и перенесённые в dead-letter")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        directory = Paths.get(properties.getDirectory());
+        Files.createDirectories(directory);
+        source = readOrCreateSource();
+        ackedSeq = readCheckpoint();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segmentFiles = files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparingLong(HitSpool::firstSeqOf))
+                    .toList();
+            for (Path file : segmentFiles) {
+                segments.add(SpoolSegment.open(file, firstSeqOf(file), ackedSeq));
+            }
+        }
+        lastSeq = segments.isEmpty() ? ackedSeq : Math.max(ackedSeq, segments.getLast().getLastSeq());
+        removeDeliveredSegments();
+        log.info("Спул хитов открыт: каталог {}, источник {}, сегментов {}, недоставлено {}",
+                directory, source, segments.size(), getBacklog());
+    }
+
+    public synchronized void append(List<EndpointHitCreateDto> hits) {
+        try {
+            for (EndpointHitCreateDto hit : hits) {
+                long seq = lastSeq + 1;
+                SpoolSegment active = segments.isEmpty() ? null : segments.getLast();
+                if (active == null || !active.append(seq, hit.getTimestamp(), hit.getApp(), hit.getUri(), hit.getIp())) {
+                    active = roll(seq);
+                    if (!active.append(seq, hit.getTimestamp(), hit.getApp(), hit.getUri(), hit.getIp())) {
+                        log.warn("Хит не помещается в сегмент спула и будет отброшен: {}", hit);
+                        dropped.increment();
+                        continue;
+                    }
+                }
+                lastSeq = seq;
+                appended.increment();
+            }
+            if (!segments.isEmpty()) {
+                segments.getLast().force();
+            }
+            enforceDiskBudget();
+        } catch (IOException e) {
+            dropped.increment(hits.size());
+            throw new UncheckedIOException("Не удалось записать хиты в спул", e);
+        }
+    }
+
+    public synchronized SpoolBatch peek(int maxHits) {
+        List<EndpointHitCreateDto> hits = new ArrayList<>(maxHits);
+        SpoolSegment batchSegment = null;
+        int batchOffset = 0;
+        long batchLastSeq = ackedSeq;
+
+        for (SpoolSegment segment : segments) {
+            if (hits.size() >= maxHits) {
+                break;
+            }
+            if (segment.getLastSeq() <= ackedSeq) {
+                continue;
+            }
+            List<SpoolSegment.SpoolRecord> records = new ArrayList<>();
+            segment.readPending(maxHits - hits.size(), records::add);
+            for (SpoolSegment.SpoolRecord record : records) {
+                hits.add(EndpointHitCreateDto.builder()
+                        .app(record.app())
+                        .uri(record.uri())
+                        .ip(record.ip())
+                        .timestamp(record.timestamp())
+                        .seq(record.seq())
+                        .build());
+                batchSegment = segment;
+                batchOffset = record.nextOffset();
+                batchLastSeq = record.seq();
+            }
+        }
+        oldestPending = hits.isEmpty() ? null : hits.getFirst().getTimestamp();
+        return new SpoolBatch(hits, batchLastSeq, batchSegment, batchOffset);
+    }
+
+    public synchronized void acknowledge(SpoolBatch batch) {
+        if (batch.lastSeq() <= ackedSeq) {
+            return;
+        }
+        ackedSeq = batch.lastSeq();
+        batch.segment().acknowledge(batch.offset());
+        oldestPending = null;
+        try {
+            removeDeliveredSegments();
+            writeCheckpoint();
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить checkpoint спула: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Дописывает хиты в dead-letter.ndjson, по одному JSON на строку. Подтверждать их в спуле должен вызывающий.
+     */
+    public synchronized void deadLetter(List<EndpointHitCreateDto> hits) {
+        rejected.increment(hits.size());
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(DEAD_LETTER_FILE),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (EndpointHitCreateDto hit : hits) {
+                writer.write(objectMapper.writeValueAsString(hit));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось записать {} отвергнутых хитов в dead-letter: {}", hits.size(), e.getMessage());
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public synchronized long getBacklog() {
+        return segments.stream().mapToLong(segment -> segment.pendingRecords(ackedSeq)).sum();
+    }
+
+    public synchronized long getDiskUsage() {
+        return segments.stream().mapToLong(segment -> segment.getBuffer().capacity()).sum();
+    }
+
+    public synchronized double getReplayLagSeconds() {
+        if (oldestPending == null) {
+            return 0;
+        }
+        return Duration.between(oldestPending, LocalDateTime.now()).toSeconds();
+    }
+
+    private SpoolSegment roll(long firstSeq) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        SpoolSegment segment = SpoolSegment.create(path, firstSeq, (int) properties.getSegmentSize().toBytes());
+        segments.add(segment);
+        log.info("Создан новый сегмент спула: {}", path.getFileName());
+        return segment;
+    }
+
+    private void enforceDiskBudget() throws IOException {
+        long maxBytes = properties.getMaxSize().toBytes();
+        boolean trimmed = false;
+        while (segments.size() > 1 && getDiskUsage() > maxBytes) {
+            SpoolSegment oldest = segments.removeFirst();
+            int lost = oldest.pendingRecords(ackedSeq);
+            dropped.increment(lost);
+            ackedSeq = Math.max(ackedSeq, oldest.getLastSeq());
+            oldest.delete();
+            log.warn("Превышен лимит спула {}, удалён сегмент {}, потеряно хитов: {}",
+                    properties.getMaxSize(), oldest.getPath().getFileName(), lost);
+            trimmed = true;
+        }
+        if (trimmed) {
+            writeCheckpoint();
+        }
+    }
+
+    private void removeDeliveredSegments() throws IOException {
+        while (segments.size() > 1 && segments.getFirst().getLastSeq() <= ackedSeq) {
+            segments.removeFirst().delete();
+        }
+    }
+
+    private String readOrCreateSource() throws IOException {
+        Path file = directory.resolve(SOURCE_FILE);
+        if (Files.exists(file)) {
+            return Files.readString(file, StandardCharsets.UTF_8).trim();
+        }
+        String created = appName + "-" + UUID.randomUUID();
+        Files.writeString(file, created, StandardCharsets.UTF_8);
+        return created;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0L;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getLong();
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(ackedSeq).array());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long firstSeqOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    public record SpoolBatch(List<EndpointHitCreateDto> hits, long lastSeq, SpoolSegment segment, int offset) {
+
+        public boolean isEmpty() {
+            return hits.isEmpty();
+        }
+    }
+}
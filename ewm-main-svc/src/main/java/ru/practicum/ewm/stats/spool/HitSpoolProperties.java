@@ -0,0 +1,24 @@
+package ru.practicum.ewm.stats.spool;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.spool")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class HitSpoolProperties {
+    /**
+     * Каталог спула; относительный путь отсчитывается от рабочего каталога приложения.
+     * Должен лежать на постоянном диске: tmpfs или очищаемый при перезагрузке каталог теряет недоставленные хиты.
+     */
+    String directory = "data/stats-spool";
+    DataSize segmentSize = DataSize.ofMegabytes(4);
+    DataSize maxSize = DataSize.ofMegabytes(256);
+    int replayBatchSize = 500;
+    int maxBatchesPerRun = 20;
+}
@@ -0,0 +1,109 @@
+package ru.practicum.ewm.stats.spool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stat.EndpointHitCreateDto;
+import ru.practicum.stat.StatisticsClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Component
+public class HitSpoolReplayer {
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(
+            HttpStatus.REQUEST_TIMEOUT.value(),
+            HttpStatus.TOO_MANY_REQUESTS.value());
+
+    private final HitSpool spool;
+    private final StatisticsClient statisticsClient;
+    private final HitSpoolProperties properties;
+    private final Counter replayed;
+
+    public HitSpoolReplayer(HitSpool spool,
+                            StatisticsClient statisticsClient,
+                            HitSpoolProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.statisticsClient = statisticsClient;
+        this.properties = properties;
+        this.replayed = Counter.builder("stats.spool.replayed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${stats.spool.replay-interval:PT5S}")
+    public void replay() {
+        for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+            HitSpool.SpoolBatch batch = spool.peek(properties.getReplayBatchSize());
+            if (batch.isEmpty()) {
+                return;
+            }
+            Delivery delivery = deliver(batch.hits());
+            if (delivery == Delivery.FAILED) {
+                return;
+            }
+            if (delivery == Delivery.REJECTED && !deliverOneByOne(batch.hits())) {
+                return;
+            }
+            spool.acknowledge(batch);
+            replayed.increment(batch.hits().size());
+            log.info("Из спула доставлено {} хитов, последний seq {}", batch.hits().size(), batch.lastSeq());
+        }
+    }
+
+    /**
+     * Пакет, отвергнутый целиком, досылается по одному хиту, чтобы один некорректный хит не держал голову спула:
+     * отвергнутые хиты уходят в dead-letter, остальные доставляются. Повтор уже принятых хитов stats-server
+     * отбрасывает по seq, поэтому при сбое посередине пакет можно просто отправить заново.
+     */
+    private boolean deliverOneByOne(List<EndpointHitCreateDto> hits) {
+        List<EndpointHitCreateDto> rejected = new ArrayList<>();
+        for (EndpointHitCreateDto hit : hits) {
+            Delivery delivery = deliver(List.of(hit));
+            if (delivery == Delivery.FAILED) {
+                return false;
+            }
+            if (delivery == Delivery.REJECTED) {
+                rejected.add(hit);
+            }
+        }
+        if (!rejected.isEmpty()) {
+            spool.deadLetter(rejected);
+            log.warn("stats-server отверг {} хитов из спула, они перенесены в dead-letter", rejected.size());
+        }
+        return true;
+    }
+
+    private Delivery deliver(List<EndpointHitCreateDto> hits) {
+        try {
+            ResponseEntity<Object> response = statisticsClient.createAll(hits, spool.getSource());
+            HttpStatusCode status = response.getStatusCode();
+            if (status.is2xxSuccessful()) {
+                return Delivery.DELIVERED;
+            }
+            log.warn("stats-server не принял пакет из спула: {}", status);
+            if (status.is4xxClientError() && !RETRYABLE_STATUSES.contains(status.value())) {
+                return Delivery.REJECTED;
+            }
+        } catch (Exception e) {
+            log.debug("stats-server пока недоступен, повтор доставки из спула позже: {}", e.getMessage());
+        }
+        return Delivery.FAILED;
+    }
+
+    private enum Delivery {
+        DELIVERED,
+        /**
+         * stats-server счёл хиты некорректными, повтор того же пакета ничего не изменит.
+         */
+        REJECTED,
+        FAILED
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.ewm.stats.spool;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+/**
+ * Сегмент спула фиксированного размера, отображённый в память.
+ * Формат записи: [int длина тела][long seq][long время, мс][тело: app, uri, ip как short-длина + UTF-8].
+ * Длина записывается последней и служит признаком того, что запись завершена.
+ * readOffset указывает на первую неподтверждённую запись, чтобы чтение не разбирало сегмент с начала.
+ */
+@Getter
+class SpoolSegment {
+
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Long.BYTES;
+    static final int MAX_FIELD_LENGTH = 0xFFFF;
+
+    private final Path path;
+    private final long firstSeq;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+    private int readOffset;
+    private long lastSeq;
+
+    private SpoolSegment(Path path, long firstSeq, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSeq = firstSeq;
+        this.buffer = buffer;
+        this.lastSeq = firstSeq - 1;
+    }
+
+    static SpoolSegment create(Path path, long firstSeq, int size) throws IOException {
+        return new SpoolSegment(path, firstSeq, map(path, size));
+    }
+
+    static SpoolSegment open(Path path, long firstSeq, long ackedSeq) throws IOException {
+        SpoolSegment segment = new SpoolSegment(path, firstSeq, map(path, (int) Files.size(path)));
+        segment.forEach(0, Integer.MAX_VALUE, record -> {
+            segment.lastSeq = record.seq();
+            segment.writePosition = record.nextOffset();
+            if (record.seq() <= ackedSeq) {
+                segment.readOffset = record.nextOffset();
+            }
+        });
+        return segment;
+    }
+
+    boolean append(long seq, LocalDateTime timestamp, String app, String uri, String ip) {
+        byte[] appBytes = app.getBytes(StandardCharsets.UTF_8);
+        byte[] uriBytes = uri.getBytes(StandardCharsets.UTF_8);
+        byte[] ipBytes = ip.getBytes(StandardCharsets.UTF_8);
+        if (Math.max(appBytes.length, Math.max(uriBytes.length, ipBytes.length)) > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Поле хита длиннее " + MAX_FIELD_LENGTH + " байт");
+        }
+        int bodyLength = 3 * Short.BYTES + appBytes.length + uriBytes.length + ipBytes.length;
+        if (writePosition + HEADER_SIZE + bodyLength + Integer.BYTES > buffer.capacity()) {
+            return false;
+        }
+        int offset = writePosition + Integer.BYTES;
+        buffer.putLong(offset, seq);
+        buffer.putLong(offset + Long.BYTES, timestamp.toInstant(ZoneOffset.UTC).toEpochMilli());
+        offset += 2 * Long.BYTES;
+        offset = putString(offset, appBytes);
+        offset = putString(offset, uriBytes);
+        offset = putString(offset, ipBytes);
+        buffer.putInt(writePosition, bodyLength);
+
+        writePosition = offset;
+        lastSeq = seq;
+        return true;
+    }
+
+    /**
+     * Не больше maxRecords неподтверждённых записей начиная с readOffset.
+     */
+    void readPending(int maxRecords, Consumer<SpoolRecord> consumer) {
+        forEach(readOffset, maxRecords, consumer);
+    }
+
+    void acknowledge(int offset) {
+        readOffset = Math.max(readOffset, offset);
+    }
+
+    private void forEach(int fromOffset, int maxRecords, Consumer<SpoolRecord> consumer) {
+        int offset = fromOffset;
+        int read = 0;
+        while (read < maxRecords && offset + HEADER_SIZE <= buffer.capacity()) {
+            int bodyLength = buffer.getInt(offset);
+            if (bodyLength <= 0 || offset + HEADER_SIZE + bodyLength > buffer.capacity()) {
+                return;
+            }
+            long seq = buffer.getLong(offset + Integer.BYTES);
+            long epochMillis = buffer.getLong(offset + Integer.BYTES + Long.BYTES);
+            int position = offset + HEADER_SIZE;
+            String app = getString(position);
+            position += Short.BYTES + Short.toUnsignedInt(buffer.getShort(position));
+            String uri = getString(position);
+            position += Short.BYTES + Short.toUnsignedInt(buffer.getShort(position));
+            String ip = getString(position);
+            int nextOffset = offset + HEADER_SIZE + bodyLength;
+            LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+            consumer.accept(new SpoolRecord(seq, timestamp, app, uri, ip, nextOffset));
+            offset = nextOffset;
+            read++;
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    int pendingRecords(long ackedSeq) {
+        return (int) Math.max(0, lastSeq - Math.max(ackedSeq, firstSeq - 1));
+    }
+
+    private int putString(int offset, byte[] bytes) {
+        buffer.putShort(offset, (short) bytes.length);
+        buffer.put(offset + Short.BYTES, bytes);
+        return offset + Short.BYTES + bytes.length;
+    }
+
+    private String getString(int offset) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(offset))];
+        buffer.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+             FileChannel channel = file.getChannel()) {
+            file.setLength(size);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    record SpoolRecord(long seq, LocalDateTime timestamp, String app, String uri, String ip, int nextOffset) {
+    }
+}
@@ -1,6 +1,9 @@
 package ru.practicum.ewm.subscription;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.ewm.enums.FriendshipsStatus;
 import ru.practicum.ewm.subscription.model.Subscription;
@@ -14,7 +17,7 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
 
     List<Subscription> findByFollower(User follower);
 
-    List<Subscription> findByOwner(User owner, Pageable pageable);
+    Window<Subscription> findByOwner(User owner, ScrollPosition position, Limit limit, Sort sort);
 
     long countByOwnerAndFriendshipsStatusIn(User owner, List<FriendshipsStatus> friendshipsStatuses);
 }
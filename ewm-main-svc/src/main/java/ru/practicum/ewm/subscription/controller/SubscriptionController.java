@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.event.dto.EventShortDto;
@@ -44,11 +45,12 @@ public class SubscriptionController {
     }
 
     @GetMapping("/events")
-    public List<EventShortDto> getEventsFromSubscriptions(@PathVariable Long userId,
-                                                          @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                          @RequestParam(defaultValue = "10") @Positive int size) {
+    public ResponseEntity<List<EventShortDto>> getEventsFromSubscriptions(@PathVariable Long userId,
+                                                                          @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                                          @RequestParam(defaultValue = "10") @Positive int size,
+                                                                          @RequestParam(required = false) String cursor) {
         log.info("Получен GET запрос на получение событий от подписок пользователя {}", userId);
-        return subscriptionService.getEventsFromSubscriptions(userId, from, size);
+        return subscriptionService.getEventsFromSubscriptions(userId, from, size, cursor).toResponseEntity();
     }
 
     @GetMapping("/subscribers/count")
@@ -58,10 +60,11 @@ public class SubscriptionController {
     }
 
     @GetMapping("/subscribers")
-    public List<SubscriberData> getAllSubscribers(@PathVariable Long userId,
-                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                  @RequestParam(defaultValue = "10") @Positive int size) {
+    public ResponseEntity<List<SubscriberData>> getAllSubscribers(@PathVariable Long userId,
+                                                                  @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                                  @RequestParam(defaultValue = "10") @Positive int size,
+                                                                  @RequestParam(required = false) String cursor) {
         log.info("Получен GET запрос на получение всех подписчиков пользователя {}", userId);
-        return subscriptionService.getAllSubscribers(userId, from, size);
+        return subscriptionService.getAllSubscribers(userId, from, size, cursor).toResponseEntity();
     }
 }
\ No newline at end of file
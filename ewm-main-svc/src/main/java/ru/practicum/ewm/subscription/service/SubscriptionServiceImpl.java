@@ -4,9 +4,9 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.enums.FriendshipsStatus;
@@ -16,6 +16,8 @@ import ru.practicum.ewm.event.mapper.EventMapper;
 import ru.practicum.ewm.event.model.Event;
 import ru.practicum.ewm.exception.ConflictException;
 import ru.practicum.ewm.exception.NotFoundException;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursors;
 import ru.practicum.ewm.subscription.SubscriptionRepository;
 import ru.practicum.ewm.subscription.dto.NewRequestSubscription;
 import ru.practicum.ewm.subscription.dto.SubscriberData;
@@ -81,7 +83,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<EventShortDto> getEventsFromSubscriptions(Long userId, int from, int size) {
+    public CursorPage<EventShortDto> getEventsFromSubscriptions(Long userId, int from, int size, String cursor) {
         User follower = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
 
@@ -91,12 +93,11 @@ public class SubscriptionServiceImpl implements SubscriptionService {
                 .map(subscription -> subscription.getOwner().getId())
                 .collect(Collectors.toList());
 
-        PageRequest pageRequest = PageRequest.of(from / size, size, Sort.by("eventDate").descending());
-        List<Event> events = eventRepository.findByInitiatorIdIn(ownerIds, pageRequest);
+        Sort sort = Sort.by(Sort.Direction.DESC, "eventDate", "id");
+        Window<Event> events = eventRepository.findByInitiatorIdIn(ownerIds,
+                PageCursors.position(cursor, from, sort), Limit.of(size), sort);
 
-        return events.stream()
-                .map(EventMapper::toEventShortDto)
-                .collect(Collectors.toList());
+        return PageCursors.page(events, sort).map(EventMapper::toEventShortDto);
     }
 
     @Override
@@ -114,15 +115,14 @@ public class SubscriptionServiceImpl implements SubscriptionService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<SubscriberData> getAllSubscribers(Long userId, int from, int size) {
+    public CursorPage<SubscriberData> getAllSubscribers(Long userId, int from, int size, String cursor) {
         User owner = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
 
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<Subscription> subscriptions = subscriptionRepository.findByOwner(owner, pageable);
-        return subscriptions.stream()
-                .map(SubscriptionMapper::toSubscriberData)
-                .collect(Collectors.toList());
+        Sort sort = Sort.by(Sort.Direction.ASC, "id");
+        Window<Subscription> subscriptions = subscriptionRepository.findByOwner(owner,
+                PageCursors.position(cursor, from, sort), Limit.of(size), sort);
+        return PageCursors.page(subscriptions, sort).map(SubscriptionMapper::toSubscriberData);
     }
 
     private User findUser(Long userId) {
@@ -1,16 +1,20 @@
 package ru.practicum.ewm.user;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.ewm.user.model.User;
 
 import java.util.Collection;
-import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
-    List<User> findByIdIn(Collection<Long> ids, Pageable pageable);
+    Window<User> findByIdIn(Collection<Long> ids, ScrollPosition position, Limit limit, Sort sort);
+
+    Window<User> findAllBy(ScrollPosition position, Limit limit, Sort sort);
 
 }
@@ -6,7 +6,9 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.ewm.pagination.CursorPage;
 import ru.practicum.ewm.user.dto.NewUserRequest;
 import ru.practicum.ewm.user.dto.UserDto;
 import ru.practicum.ewm.user.service.UserService;
@@ -39,12 +41,14 @@ public class AdminUserController {
     }
 
     @GetMapping
-    public List<UserDto> getAllUsers(@RequestParam(required = false) List<Long> ids,
-                                     @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                     @RequestParam(defaultValue = "10") @Positive int size) {
-        log.info("GET запрос на получение списка пользователей с параметрами: ids={}, from={}, size={}", ids, from, size);
-        List<UserDto> users = service.getAllUsers(ids, from, size);
-        log.info("Возвращен список пользователей: {}", users);
-        return users;
+    public ResponseEntity<List<UserDto>> getAllUsers(@RequestParam(required = false) List<Long> ids,
+                                                     @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                     @RequestParam(defaultValue = "10") @Positive int size,
+                                                     @RequestParam(required = false) String cursor) {
+        log.info("GET запрос на получение списка пользователей с параметрами: ids={}, from={}, size={}, cursor={}",
+                ids, from, size, cursor);
+        CursorPage<UserDto> users = service.getAllUsers(ids, from, size, cursor);
+        log.info("Возвращен список пользователей: {}", users.items());
+        return users.toResponseEntity();
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ru.practicum.ewm.user.service;
 
+import ru.practicum.ewm.pagination.CursorPage;
 import ru.practicum.ewm.user.dto.NewUserRequest;
 import ru.practicum.ewm.user.dto.UserDto;
 
@@ -10,5 +11,5 @@ public interface UserService {
 
     void delete(Long id);
 
-    List<UserDto> getAllUsers(List<Long> ids, int from, int size);
+    CursorPage<UserDto> getAllUsers(List<Long> ids, int from, int size, String cursor);
 }
@@ -4,11 +4,15 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.exception.DuplicatedDataException;
+import ru.practicum.ewm.pagination.CursorPage;
+import ru.practicum.ewm.pagination.PageCursors;
 import ru.practicum.ewm.user.UserRepository;
 import ru.practicum.ewm.user.dto.NewUserRequest;
 import ru.practicum.ewm.user.dto.UserDto;
@@ -16,7 +20,6 @@ import ru.practicum.ewm.user.mapper.UserMapper;
 import ru.practicum.ewm.user.model.User;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -45,11 +48,12 @@ public class UserServiceImpl implements UserService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<UserDto> getAllUsers(List<Long> ids, int from, int size) {
-        int page = from > 0 ? from / size : 0;
-        Pageable pageable = PageRequest.of(page, size);
-        return (ids != null) ? userRepository.findByIdIn(ids, pageable)
-                .stream().map(UserMapper::toUserDto).collect(Collectors.toList()) : userRepository.findAll(pageable)
-                .stream().map(UserMapper::toUserDto).collect(Collectors.toList());
+    public CursorPage<UserDto> getAllUsers(List<Long> ids, int from, int size, String cursor) {
+        Sort sort = Sort.by(Sort.Direction.ASC, "id");
+        ScrollPosition position = PageCursors.position(cursor, from, sort);
+        Window<User> users = (ids != null)
+                ? userRepository.findByIdIn(ids, position, Limit.of(size), sort)
+                : userRepository.findAllBy(position, Limit.of(size), sort);
+        return PageCursors.page(users, sort).map(UserMapper::toUserDto);
     }
 }
\ No newline at end of file
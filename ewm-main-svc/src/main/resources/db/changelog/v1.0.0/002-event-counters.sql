@@ -0,0 +1,9 @@
+--liquibase formatted sql
+
+--changeset pavel:002-event-counters
+ALTER TABLE events ADD COLUMN confirmed_requests BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN views BIGINT NOT NULL DEFAULT 0;
+
+UPDATE events SET confirmed_requests = (
+    SELECT COUNT(*) FROM requests r WHERE r.event_id = events.id AND r.status = 'CONFIRMED'
+);
@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset pavel:003-event-sort-indexes
+CREATE INDEX idx_events_state_event_date ON events (state, event_date, id);
+CREATE INDEX idx_events_state_views ON events (state, views, id);
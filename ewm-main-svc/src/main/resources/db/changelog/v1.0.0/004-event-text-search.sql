@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset pavel:004-event-text-search dbms:postgresql
+CREATE INDEX idx_events_text_search ON events USING GIN (
+    (setweight(to_tsvector('simple', annotation), 'A') || setweight(to_tsvector('simple', description), 'B'))
+);
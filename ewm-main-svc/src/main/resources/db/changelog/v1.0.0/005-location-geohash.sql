@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset pavel:005-location-geohash
+ALTER TABLE locations ADD COLUMN geohash VARCHAR(12);
+CREATE INDEX idx_locations_geohash ON locations (geohash);
+CREATE INDEX idx_events_location ON events (location_id);
@@ -0,0 +1,4 @@
+--liquibase formatted sql
+
+--changeset pavel:006-request-status-index
+CREATE INDEX idx_requests_event_status ON requests (event_id, status, created);
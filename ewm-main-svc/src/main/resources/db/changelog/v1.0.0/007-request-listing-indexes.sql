@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset pavel:007-request-listing-indexes
+CREATE INDEX idx_requests_event_status_id ON requests (event_id, status, id);
+CREATE INDEX idx_requests_requester_id ON requests (requester_id, id);
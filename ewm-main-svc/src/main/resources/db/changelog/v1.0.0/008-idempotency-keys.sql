@@ -0,0 +1,11 @@
+--liquibase formatted sql
+
+--changeset pavel:008-idempotency-keys
+CREATE TABLE idempotency_keys (
+    id VARCHAR(64) PRIMARY KEY,
+    status INTEGER NOT NULL,
+    content_type VARCHAR(255),
+    body TEXT,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+CREATE INDEX idx_idempotency_keys_created ON idempotency_keys (created);
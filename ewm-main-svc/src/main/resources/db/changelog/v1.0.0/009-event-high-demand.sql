@@ -0,0 +1,4 @@
+--liquibase formatted sql
+
+--changeset pavel:009-event-high-demand
+ALTER TABLE events ADD COLUMN high_demand BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,4 @@
+--liquibase formatted sql
+
+--changeset pavel:010-idempotency-request-hash
+ALTER TABLE idempotency_keys ADD COLUMN request_hash VARCHAR(64);
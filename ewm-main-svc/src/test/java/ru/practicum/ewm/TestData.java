@@ -0,0 +1,77 @@
+package ru.practicum.ewm;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.category.CategoryRepository;
+import ru.practicum.ewm.category.model.Category;
+import ru.practicum.ewm.enums.EventState;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.location.model.Location;
+import ru.practicum.ewm.user.UserRepository;
+import ru.practicum.ewm.user.model.User;
+import ru.practicum.stat.StatisticsClient;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Общие данные интеграционных тестов: пользователи, категории и заготовка опубликованного события
+ * с уникальными именами, чтобы тесты не мешали друг другу в общей базе контекста.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TestData {
+
+    UserRepository userRepository;
+    CategoryRepository categoryRepository;
+
+    public User saveUser() {
+        String name = unique("user");
+        return userRepository.save(User.builder().name(name).email(name + "@example.com").build());
+    }
+
+    public Category saveCategory() {
+        return categoryRepository.save(Category.builder().name(unique("category")).build());
+    }
+
+    /**
+     * Опубликованное событие через неделю без лимита и модерации; тест переопределяет нужные поля.
+     */
+    public static Event.EventBuilder publishedEvent(User initiator, Category category) {
+        return Event.builder()
+                .location(Location.builder().lat(55.75f).lon(37.61f).build())
+                .initiator(initiator)
+                .category(category)
+                .title("Event")
+                .annotation("Annotation of a test event")
+                .description("Description of a test event")
+                .eventDate(LocalDateTime.now().plusDays(7))
+                .paid(false)
+                .participantLimit(0)
+                .requestModeration(false)
+                .state(EventState.PUBLISHED)
+                .createdOn(LocalDateTime.now())
+                .publishedOn(LocalDateTime.now());
+    }
+
+    /**
+     * Замоканный клиент статистики принимает хиты, иначе поток отправки и повтор спула получают null вместо ответа
+     * и складывают хиты в спул. Мок должен быть объявлен с reset = NONE: хиты отправляются и после конца теста.
+     */
+    public static void stubStatistics(StatisticsClient statisticsClient) {
+        when(statisticsClient.createAll(anyList())).thenReturn(ResponseEntity.ok().build());
+        when(statisticsClient.createAll(anyList(), anyString())).thenReturn(ResponseEntity.ok().build());
+    }
+
+    public static String unique(String prefix) {
+        return prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
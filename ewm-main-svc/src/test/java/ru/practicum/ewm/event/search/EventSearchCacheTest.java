@@ -0,0 +1,67 @@
+package ru.practicum.ewm.event.search;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.category.model.Category;
+import ru.practicum.ewm.event.dto.EventSearchParams;
+import ru.practicum.ewm.event.dto.EventShortDto;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSearchCacheTest {
+
+    @Test
+    void keyIsNotAffectedByLaterChangesOfParams() {
+        List<Long> categories = new ArrayList<>(List.of(3L, 1L, 3L));
+        EventSearchParams params = new EventSearchParams();
+        params.setCategories(categories);
+        params.setText("Jazz");
+        params.setRangeStart(LocalDateTime.of(2026, 10, 18, 12, 34, 56));
+        params.setSize(20);
+
+        EventSearchKey key = EventSearchKey.of(params, Duration.ofMinutes(1));
+        categories.add(7L);
+        params.setRangeStart(LocalDateTime.of(2030, 1, 1, 0, 0));
+
+        assertThat(key.categories()).containsExactly(1L, 3L);
+        EventSearchParams loaderParams = key.toParams();
+        assertThat(loaderParams.getCategories()).containsExactly(1L, 3L);
+        assertThat(loaderParams.getText()).isEqualTo("jazz");
+        assertThat(loaderParams.getRangeStart()).isEqualTo(LocalDateTime.of(2026, 10, 18, 12, 34));
+        assertThat(loaderParams.getSize()).isEqualTo(20);
+        assertThat(EventSearchKey.of(loaderParams, Duration.ofMinutes(1))).isEqualTo(key);
+    }
+
+    @Test
+    void cachedEventHandsOutIndependentDtos() {
+        EventSearchCache.CachedEvent cached = EventSearchCache.CachedEvent.of(Event.builder()
+                .id(5L)
+                .annotation("Annotation")
+                .category(Category.builder().id(2L).name("Concerts").build())
+                .initiator(User.builder().id(9L).name("Initiator").build())
+                .eventDate(LocalDateTime.of(2026, 11, 1, 19, 0))
+                .paid(true)
+                .title("Title")
+                .createdOn(LocalDateTime.of(2026, 10, 1, 10, 0))
+                .views(4L)
+                .build());
+
+        EventShortDto first = cached.toDto(10);
+        first.getCategory().setName("Changed");
+        first.getInitiator().setName("Changed");
+        first.setTitle("Changed");
+
+        EventShortDto second = cached.toDto(11);
+        assertThat(second.getCategory().getName()).isEqualTo("Concerts");
+        assertThat(second.getInitiator().getName()).isEqualTo("Initiator");
+        assertThat(second.getTitle()).isEqualTo("Title");
+        assertThat(second.getViews()).isEqualTo(11);
+        assertThat(cached.toViewsSource().getCreatedOn()).isEqualTo(LocalDateTime.of(2026, 10, 1, 10, 0));
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.ewm.event.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockReset;
+import org.springframework.mock.web.MockHttpServletRequest;
+import ru.practicum.ewm.TestData;
+import ru.practicum.ewm.category.model.Category;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.event.dto.EventFullDto;
+import ru.practicum.ewm.event.dto.EventSearchParams;
+import ru.practicum.ewm.location.model.Location;
+import ru.practicum.ewm.user.model.User;
+import ru.practicum.stat.StatisticsClient;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Число SQL-запросов списков событий не зависит от размера страницы: связи загружаются вместе со страницей.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EventServiceImplStatementCountTest {
+
+    private static final int SMALL_PAGE = 3;
+    private static final int LARGE_PAGE = 12;
+
+    @Autowired
+    private EventService eventService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @MockBean(reset = MockReset.NONE)
+    private StatisticsClient statisticsClient;
+
+    private User initiator;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        TestData.stubStatistics(statisticsClient);
+        initiator = testData.saveUser();
+        category = testData.saveCategory();
+        for (int i = 0; i < LARGE_PAGE; i++) {
+            eventRepository.save(TestData.publishedEvent(initiator, category)
+                    .location(Location.builder().lat(55.75f + i * 0.01f).lon(37.61f).build())
+                    .title("Event " + i)
+                    .annotation("Annotation of event " + i)
+                    .description("Description of event " + i)
+                    .eventDate(LocalDateTime.now().plusDays(i + 1))
+                    .createdOn(LocalDateTime.now().minusDays(1))
+                    .publishedOn(LocalDateTime.now().minusDays(1))
+                    .build());
+        }
+    }
+
+    @Test
+    void publicListingUsesOneStatement() {
+        assertStatements(1, size -> eventService.findAllByPublic(publicParams(size), request()).items().size());
+    }
+
+    @Test
+    void privateListingUsesFixedStatements() {
+        assertStatements(2, size -> eventService.findAllByPrivate(initiator.getId(), 0, size, null, request())
+                .items().size());
+    }
+
+    @Test
+    void adminListingUsesOneStatement() {
+        assertStatements(1, size -> eventService.findAllByAdmin(adminParams(size), request()).items().size());
+    }
+
+    @Test
+    void adminListingTreatsFromAsOffset() {
+        EventSearchParams params = adminParams(SMALL_PAGE);
+        params.setFrom(5);
+        assertThat(eventService.findAllByAdmin(params, request()).items())
+                .extracting(EventFullDto::getTitle)
+                .containsExactly("Event 5", "Event 6", "Event 7");
+    }
+
+    private void assertStatements(long expected, PageQuery query) {
+        assertThat(statementsFor(() -> query.load(SMALL_PAGE), SMALL_PAGE)).isEqualTo(expected);
+        assertThat(statementsFor(() -> query.load(LARGE_PAGE), LARGE_PAGE)).isEqualTo(expected);
+    }
+
+    private long statementsFor(IntSupplier query, int expectedItems) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(query.getAsInt()).isEqualTo(expectedItems);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private EventSearchParams publicParams(int size) {
+        EventSearchParams params = new EventSearchParams();
+        params.setCategories(List.of(category.getId()));
+        params.setSize(size);
+        return params;
+    }
+
+    private EventSearchParams adminParams(int size) {
+        EventSearchParams params = new EventSearchParams();
+        params.setUsers(List.of(initiator.getId()));
+        params.setSize(size);
+        return params;
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/events");
+        request.setRemoteAddr("127.0.0.1");
+        return request;
+    }
+
+    @FunctionalInterface
+    private interface PageQuery {
+        int load(int size);
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.ewm.idempotency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.ewm.exception.ErrorHandler;
+import ru.practicum.ewm.exception.TooManyRequestsException;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Фильтр поверх тестового контроллера, который считает вызовы: повтор не должен до него доходить.
+ */
+@SpringBootTest
+class IdempotencyFilterTest {
+
+    @Autowired
+    private IdempotencyFilter filter;
+
+    private TestController controller;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        controller = new TestController();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new ErrorHandler())
+                .addFilters(filter)
+                .build();
+    }
+
+    @Test
+    void replayReturnsStoredResponseWithoutCallingController() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        String first = mockMvc.perform(post("/test/items").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"a\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/test/items").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"a\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(first, true));
+
+        assertThat(controller.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentDuplicateGetsConflict() throws Exception {
+        String key = UUID.randomUUID().toString();
+        controller.blockNext.set(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(() -> mockMvc.perform(post("/test/items")
+                            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                            .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"a\"}"))
+                    .andReturn().getResponse().getStatus());
+            assertThat(controller.entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+            mockMvc.perform(post("/test/items").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                            .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"a\"}"))
+                    .andExpect(status().isConflict());
+
+            controller.proceed.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(HttpStatus.CREATED.value());
+        } finally {
+            controller.proceed.countDown();
+            executor.shutdownNow();
+        }
+
+        mockMvc.perform(post("/test/items").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"a\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+        assertThat(controller.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void tooManyRequestsIsNotStored() throws Exception {
+        String key = UUID.randomUUID().toString();
+        controller.rejectNext.set(1);
+
+        mockMvc.perform(post("/test/items").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"a\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        mockMvc.perform(post("/test/items").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"a\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+
+        assertThat(controller.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        mockMvc.perform(post("/test/items").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"a\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/test/items").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"b\"}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertThat(controller.calls.get()).isEqualTo(1);
+    }
+
+    @RestController
+    static class TestController {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger rejectNext = new AtomicInteger();
+        final AtomicBoolean blockNext = new AtomicBoolean();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+
+        @PostMapping("/test/items")
+        @ResponseStatus(HttpStatus.CREATED)
+        Map<String, Object> create(@RequestBody Map<String, Object> item) {
+            int call = calls.incrementAndGet();
+            if (blockNext.getAndSet(false)) {
+                entered.countDown();
+                try {
+                    proceed.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (rejectNext.getAndDecrement() > 0) {
+                throw new TooManyRequestsException("Очередь заявок на событие переполнена, повторите позже.");
+            }
+            return Map.of("id", call, "name", item.get("name"));
+        }
+    }
+}
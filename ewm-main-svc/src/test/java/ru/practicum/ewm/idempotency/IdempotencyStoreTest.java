@@ -0,0 +1,59 @@
+package ru.practicum.ewm.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.ewm.idempotency.model.IdempotentResponse;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class IdempotencyStoreTest {
+
+    @Autowired
+    private IdempotencyStore store;
+    @Autowired
+    private IdempotentResponseRepository repository;
+
+    @Test
+    void saveKeepsFirstStoredResponse() {
+        String id = UUID.randomUUID().toString();
+
+        store.save(response(id, 201, "{\"id\":1}"));
+        store.save(response(id, 409, "{\"status\":\"CONFLICT\"}"));
+
+        IdempotentResponse stored = repository.findById(id).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(201);
+        assertThat(stored.getBody()).isEqualTo("{\"id\":1}");
+        assertThat(store.find(id)).get().extracting(IdempotentResponse::getStatus).isEqualTo(201);
+    }
+
+    @Test
+    void saveReplacesExpiredResponse() {
+        String id = UUID.randomUUID().toString();
+        repository.saveAndFlush(response(id, 201, "{\"id\":1}", LocalDateTime.now().minusDays(2)));
+        assertThat(store.find(id)).isEmpty();
+
+        store.save(response(id, 201, "{\"id\":2}"));
+
+        assertThat(repository.findById(id)).get().extracting(IdempotentResponse::getBody).isEqualTo("{\"id\":2}");
+        assertThat(store.find(id)).get().extracting(IdempotentResponse::getBody).isEqualTo("{\"id\":2}");
+    }
+
+    private static IdempotentResponse response(String id, int status, String body) {
+        return response(id, status, body, LocalDateTime.now());
+    }
+
+    private static IdempotentResponse response(String id, int status, String body, LocalDateTime created) {
+        return IdempotentResponse.builder()
+                .id(id)
+                .status(status)
+                .contentType("application/json")
+                .body(body)
+                .created(created)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.ewm.location.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoHashTest {
+
+    private static final int MAX_CELLS = 16;
+
+    @Test
+    void encodeMatchesKnownGeohashes() {
+        assertThat(GeoHash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(GeoHash.encode(42.60498046875, -5.60302734375, 5)).isEqualTo("ezs42");
+        assertThat(GeoHash.encode(0, 0, 1)).isEqualTo("s");
+    }
+
+    @Test
+    void encodeCornersOfTheWorld() {
+        assertThat(GeoHash.encode(-90, -180, GeoHash.PRECISION)).isEqualTo("000000000");
+        assertThat(GeoHash.encode(90, 180, GeoHash.PRECISION)).isEqualTo("zzzzzzzzz");
+        assertThat(GeoHash.encode(90, -180, 1)).isEqualTo("b");
+        assertThat(GeoHash.encode(-90, 180, 1)).isEqualTo("p");
+    }
+
+    @Test
+    void coverContainsEveryPointOfTheBox() {
+        List<String> cells = GeoHash.cover(55.70, 37.50, 55.80, 37.70, MAX_CELLS);
+
+        assertThat(cells).hasSizeLessThanOrEqualTo(MAX_CELLS).doesNotHaveDuplicates();
+        for (double lat = 55.70; lat <= 55.80; lat += 0.01) {
+            for (double lon = 37.50; lon <= 37.70; lon += 0.01) {
+                assertCovered(cells, lat, lon);
+            }
+        }
+    }
+
+    @Test
+    void coverReachesPolesAndAntimeridian() {
+        List<String> northPole = GeoHash.cover(89, -10, 90, 10, MAX_CELLS);
+        assertCovered(northPole, 90, 0);
+        assertCovered(northPole, 89.5, 10);
+
+        List<String> southPole = GeoHash.cover(-90, -10, -89, 10, MAX_CELLS);
+        assertCovered(southPole, -90, -10);
+
+        List<String> east = GeoHash.cover(-1, 179, 1, 180, MAX_CELLS);
+        assertCovered(east, 0, 180);
+        assertCovered(east, 1, 179.5);
+
+        List<String> west = GeoHash.cover(-1, -180, 1, -179, MAX_CELLS);
+        assertCovered(west, 0, -180);
+        assertCovered(west, -1, -179);
+    }
+
+    @Test
+    void coverFallsBackToCoarserCells() {
+        List<String> cells = GeoHash.cover(40, 20, 60, 60, MAX_CELLS);
+        assertThat(cells).hasSizeLessThanOrEqualTo(MAX_CELLS);
+        assertThat(cells).allSatisfy(cell -> assertThat(cell.length()).isLessThan(GeoHash.PRECISION));
+        assertCovered(cells, 40, 20);
+        assertCovered(cells, 60, 60);
+
+        assertThat(GeoHash.cover(-90, -180, 90, 180, MAX_CELLS))
+                .hasSize(32)
+                .allSatisfy(cell -> assertThat(cell).hasSize(1));
+    }
+
+    static void assertCovered(List<String> cells, double lat, double lon) {
+        String hash = GeoHash.encode(lat, lon, GeoHash.PRECISION);
+        assertThat(cells).as("ячейка точки %s, %s (%s)", lat, lon, hash).anyMatch(hash::startsWith);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.ewm.location.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoPredicatesTest {
+
+    private static final int MAX_CELLS = 16;
+
+    @Test
+    void radiusAcrossAntimeridianCoversBothSides() {
+        // Анадырь, 64.73 с. ш. 177.5 в. д.: в 150 км к востоку уже западная долгота
+        List<GeoPredicates.Box> boxes = GeoPredicates.radiusBoxes(64.73, 177.5, 150);
+
+        assertThat(boxes).hasSize(2);
+        assertThat(boxes).anySatisfy(box -> assertThat(box.maxLon()).isEqualTo(180));
+        assertThat(boxes).anySatisfy(box -> assertThat(box.minLon()).isEqualTo(-180));
+        List<String> cells = cover(boxes);
+        GeoHashTest.assertCovered(cells, 64.73, 177.5);
+        GeoHashTest.assertCovered(cells, 64.73, -179.9);
+    }
+
+    @Test
+    void radiusAcrossAntimeridianFromTheWest() {
+        // Фиджи со стороны западной долготы
+        List<GeoPredicates.Box> boxes = GeoPredicates.radiusBoxes(-17.0, -179.8, 50);
+
+        assertThat(boxes).hasSize(2);
+        List<String> cells = cover(boxes);
+        GeoHashTest.assertCovered(cells, -17.0, 179.9);
+        GeoHashTest.assertCovered(cells, -17.0, -179.5);
+    }
+
+    @Test
+    void radiusOverPoleTakesAllLongitudes() {
+        List<GeoPredicates.Box> boxes = GeoPredicates.radiusBoxes(89.5, 10, 200);
+
+        assertThat(boxes).hasSize(1);
+        assertThat(boxes.getFirst().minLon()).isEqualTo(-180);
+        assertThat(boxes.getFirst().maxLon()).isEqualTo(180);
+        assertThat(boxes.getFirst().maxLat()).isEqualTo(90);
+    }
+
+    @Test
+    void ordinaryRadiusIsOneBox() {
+        List<GeoPredicates.Box> boxes = GeoPredicates.radiusBoxes(55.75, 37.61, 10);
+
+        assertThat(boxes).hasSize(1);
+        GeoPredicates.Box box = boxes.getFirst();
+        assertThat(box.minLon()).isLessThan(37.61);
+        assertThat(box.maxLon()).isGreaterThan(37.61);
+    }
+
+    private static List<String> cover(List<GeoPredicates.Box> boxes) {
+        return boxes.stream()
+                .flatMap(box -> GeoHash.cover(box.minLat(), box.minLon(), box.maxLat(), box.maxLon(), MAX_CELLS)
+                        .stream())
+                .toList();
+    }
+}
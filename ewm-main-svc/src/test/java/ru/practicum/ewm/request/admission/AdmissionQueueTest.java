@@ -0,0 +1,213 @@
+package ru.practicum.ewm.request.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.TestData;
+import ru.practicum.ewm.enums.AdmissionState;
+import ru.practicum.ewm.enums.RequestStatus;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.exception.ConflictException;
+import ru.practicum.ewm.request.dto.AdmissionTicketDto;
+import ru.practicum.ewm.request.dto.ParticipationRequestDto;
+import ru.practicum.ewm.request.service.EventRequestService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Всплеск заявок через очередь допуска на настоящем сервисе и поведение очереди на заглушках сервиса:
+ * повторная подача, хранение билетов в очереди, обработка по одной после сбоя пачки и удаление простаивающей очереди.
+ */
+@SpringBootTest
+class AdmissionQueueTest {
+
+    private static final int PARTICIPANT_LIMIT = 5;
+    private static final int REQUESTS = 40;
+    private static final long EVENT_ID = 1L;
+
+    @Autowired
+    private AdmissionQueue admissionQueue;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void burstAboveSeatLimitConfirmsLimitAndWaitlistsRest() throws Exception {
+        Event event = eventRepository.save(TestData.publishedEvent(testData.saveUser(), testData.saveCategory())
+                .participantLimit(PARTICIPANT_LIMIT)
+                .highDemand(true)
+                .build());
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            userIds.add(testData.saveUser().getId());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AdmissionTicketDto>> submitted = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            for (Long userId : userIds) {
+                submitted.add(executor.submit(() -> {
+                    start.await();
+                    return admissionQueue.submitIfHighDemand(userId, event.getId()).orElseThrow();
+                }));
+            }
+            start.countDown();
+            List<AdmissionTicketDto> results = new ArrayList<>();
+            for (Future<AdmissionTicketDto> future : submitted) {
+                AdmissionTicketDto ticket = future.get(10, TimeUnit.SECONDS);
+                results.add(admissionQueue.await(ticket.getRequester(), ticket.getTicket(), Duration.ofSeconds(20))
+                        .get(30, TimeUnit.SECONDS));
+            }
+
+            assertThat(results).extracting(AdmissionTicketDto::getState).containsOnly(AdmissionState.ADMITTED);
+            Map<RequestStatus, Long> byStatus = results.stream()
+                    .collect(Collectors.groupingBy(ticket -> ticket.getRequest().getStatus(), Collectors.counting()));
+            assertThat(byStatus).containsExactlyInAnyOrderEntriesOf(Map.of(
+                    RequestStatus.CONFIRMED, (long) PARTICIPANT_LIMIT,
+                    RequestStatus.WAITLISTED, (long) (REQUESTS - PARTICIPANT_LIMIT)));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?",
+                Long.class, event.getId())).isEqualTo(PARTICIPANT_LIMIT);
+    }
+
+    @Test
+    void queuedTicketsSurviveCacheLimitAndResubmitReturnsSameTicket() throws Exception {
+        EventRequestService service = mock(EventRequestService.class);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        when(service.admit(eq(EVENT_ID), anyList())).thenAnswer(invocation -> {
+            entered.countDown();
+            proceed.await(10, TimeUnit.SECONDS);
+            List<Long> userIds = invocation.getArgument(1);
+            return userIds.stream().map(AdmissionQueueTest::confirmed).toList();
+        });
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setTicketCacheSize(1);
+        AdmissionQueue queue = newQueue(service, properties);
+        try {
+            AdmissionTicketDto first = queue.submitIfHighDemand(1L, EVENT_ID).orElseThrow();
+            assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+            List<AdmissionTicketDto> queued = new ArrayList<>();
+            for (long userId = 2; userId <= 5; userId++) {
+                queued.add(queue.submitIfHighDemand(userId, EVENT_ID).orElseThrow());
+            }
+
+            assertThat(queue.submitIfHighDemand(1L, EVENT_ID)).get()
+                    .extracting(AdmissionTicketDto::getTicket).isEqualTo(first.getTicket());
+            assertThat(queue.submitIfHighDemand(3L, EVENT_ID)).get()
+                    .extracting(AdmissionTicketDto::getTicket).isEqualTo(queued.get(1).getTicket());
+            for (AdmissionTicketDto ticket : queued) {
+                assertThat(queue.await(ticket.getRequester(), ticket.getTicket(), Duration.ZERO).get().getState())
+                        .isEqualTo(AdmissionState.QUEUED);
+            }
+
+            List<Future<AdmissionTicketDto>> done = new ArrayList<>();
+            for (AdmissionTicketDto ticket : queued) {
+                done.add(queue.await(ticket.getRequester(), ticket.getTicket(), Duration.ofSeconds(10)));
+            }
+            proceed.countDown();
+            for (Future<AdmissionTicketDto> future : done) {
+                assertThat(future.get(10, TimeUnit.SECONDS).getState()).isEqualTo(AdmissionState.ADMITTED);
+            }
+        } finally {
+            proceed.countDown();
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void failedBatchFallsBackToSingleRequests() throws Exception {
+        EventRequestService service = mock(EventRequestService.class);
+        when(service.admit(eq(EVENT_ID), anyList())).thenThrow(new IllegalStateException("deadlock"));
+        when(service.create(1L, EVENT_ID)).thenReturn(confirmed(1L).request());
+        when(service.create(2L, EVENT_ID)).thenThrow(new ConflictException("Заявка уже подана"));
+        AdmissionQueue queue = newQueue(service, new AdmissionProperties());
+        try {
+            AdmissionTicketDto first = queue.submitIfHighDemand(1L, EVENT_ID).orElseThrow();
+            AdmissionTicketDto second = queue.submitIfHighDemand(2L, EVENT_ID).orElseThrow();
+
+            AdmissionTicketDto admitted = queue.await(1L, first.getTicket(), Duration.ofSeconds(10))
+                    .get(10, TimeUnit.SECONDS);
+            AdmissionTicketDto rejected = queue.await(2L, second.getTicket(), Duration.ofSeconds(10))
+                    .get(10, TimeUnit.SECONDS);
+
+            assertThat(admitted.getState()).isEqualTo(AdmissionState.ADMITTED);
+            assertThat(admitted.getRequest().getRequester()).isEqualTo(1L);
+            assertThat(rejected.getState()).isEqualTo(AdmissionState.REJECTED);
+            assertThat(rejected.getError()).isEqualTo("Заявка уже подана");
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void idleLaneIsRetired() throws Exception {
+        EventRequestService service = mock(EventRequestService.class);
+        when(service.admit(eq(EVENT_ID), anyList())).thenAnswer(invocation -> {
+            List<Long> userIds = invocation.getArgument(1);
+            return userIds.stream().map(AdmissionQueueTest::confirmed).toList();
+        });
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setLaneIdleTimeout(Duration.ofMillis(50));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissionQueue queue = new AdmissionQueue(service, highDemandRepository(), properties, meterRegistry);
+        try {
+            AdmissionTicketDto ticket = queue.submitIfHighDemand(1L, EVENT_ID).orElseThrow();
+            assertThat(meterRegistry.get("requests.admission.lanes").gauge().value()).isEqualTo(1);
+            queue.await(1L, ticket.getTicket(), Duration.ofSeconds(10)).get(10, TimeUnit.SECONDS);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("requests.admission.lanes").gauge().value() > 0
+                    && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+            assertThat(meterRegistry.get("requests.admission.lanes").gauge().value()).isZero();
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    private static AdmissionQueue newQueue(EventRequestService service, AdmissionProperties properties) {
+        return new AdmissionQueue(service, highDemandRepository(), properties, new SimpleMeterRegistry());
+    }
+
+    private static EventRepository highDemandRepository() {
+        EventRepository repository = mock(EventRepository.class);
+        when(repository.findHighDemandById(anyLong())).thenReturn(Optional.of(true));
+        return repository;
+    }
+
+    private static AdmissionDecision confirmed(Long userId) {
+        return AdmissionDecision.admitted(ParticipationRequestDto.builder()
+                .event(EVENT_ID)
+                .requester(userId)
+                .status(RequestStatus.CONFIRMED)
+                .build());
+    }
+}
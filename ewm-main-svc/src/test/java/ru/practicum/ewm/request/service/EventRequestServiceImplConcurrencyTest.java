@@ -0,0 +1,115 @@
+package ru.practicum.ewm.request.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.TestData;
+import ru.practicum.ewm.enums.RequestStatus;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.request.dto.ParticipationRequestDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class EventRequestServiceImplConcurrencyTest {
+
+    private static final int PARTICIPANT_LIMIT = 5;
+    private static final int REQUESTS = 60;
+
+    @Autowired
+    private EventRequestService eventRequestService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelRequestsNeverExceedParticipantLimit() throws Exception {
+        Event event = saveEvent();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            userIds.add(testData.saveUser().getId());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ParticipationRequestDto>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            for (Long userId : userIds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return eventRequestService.create(userId, event.getId());
+                }));
+            }
+            start.countDown();
+            List<ParticipationRequestDto> created = new ArrayList<>();
+            for (Future<ParticipationRequestDto> future : futures) {
+                created.add(future.get());
+            }
+
+            Map<RequestStatus, Long> byStatus = created.stream()
+                    .collect(Collectors.groupingBy(ParticipationRequestDto::getStatus, Collectors.counting()));
+            assertThat(byStatus).containsExactlyInAnyOrderEntriesOf(Map.of(
+                    RequestStatus.CONFIRMED, (long) PARTICIPANT_LIMIT,
+                    RequestStatus.WAITLISTED, (long) (REQUESTS - PARTICIPANT_LIMIT)));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Long> stored = jdbcTemplate.queryForList(
+                        "SELECT status, COUNT(*) AS cnt FROM requests WHERE event_id = ? GROUP BY status", event.getId())
+                .stream()
+                .collect(Collectors.toMap(row -> (String) row.get("status"), row -> ((Number) row.get("cnt")).longValue()));
+        assertThat(stored).containsEntry(RequestStatus.CONFIRMED.name(), (long) PARTICIPANT_LIMIT);
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?",
+                Long.class, event.getId())).isEqualTo(PARTICIPANT_LIMIT);
+    }
+
+    @Test
+    void parallelCancelsReleaseSeatOnce() throws Exception {
+        Event event = saveEvent();
+        Long userId = testData.saveUser().getId();
+        ParticipationRequestDto request = eventRequestService.create(userId, event.getId());
+        assertThat(request.getStatus()).isEqualTo(RequestStatus.CONFIRMED);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ParticipationRequestDto>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return eventRequestService.cancelRequest(userId, request.getId());
+                }));
+            }
+            start.countDown();
+            for (Future<ParticipationRequestDto> future : futures) {
+                assertThat(future.get().getStatus()).isEqualTo(RequestStatus.CANCELED);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?",
+                Long.class, event.getId())).isZero();
+    }
+
+    private Event saveEvent() {
+        return eventRepository.save(TestData.publishedEvent(testData.saveUser(), testData.saveCategory())
+                .participantLimit(PARTICIPANT_LIMIT)
+                .build());
+    }
+}
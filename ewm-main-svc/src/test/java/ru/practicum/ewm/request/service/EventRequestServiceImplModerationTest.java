@@ -0,0 +1,117 @@
+package ru.practicum.ewm.request.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.MockReset;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.TestData;
+import ru.practicum.ewm.enums.RequestStatus;
+import ru.practicum.ewm.event.EventRepository;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.request.dto.EventRequestStatusUpdateRequest;
+import ru.practicum.ewm.request.dto.EventRequestStatusUpdateResult;
+import ru.practicum.ewm.request.dto.ParticipationRequestDto;
+import ru.practicum.ewm.user.model.User;
+import ru.practicum.stat.StatisticsClient;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Модерация большого набора заявок выполняется фиксированным числом запросов, а после исчерпания лимита
+ * оставшиеся заявки на рассмотрении отклоняются.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EventRequestServiceImplModerationTest {
+
+    private static final int PENDING = 10_000;
+    private static final int PARTICIPANT_LIMIT = 100;
+    private static final int SELECTED = 150;
+    private static final long STATEMENTS = 8;
+
+    @Autowired
+    private EventRequestService eventRequestService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @MockBean(reset = MockReset.NONE)
+    private StatisticsClient statisticsClient;
+
+    @BeforeEach
+    void setUp() {
+        TestData.stubStatistics(statisticsClient);
+    }
+
+    @Test
+    void confirmingPastLimitRejectsRemainingPendingRequests() {
+        User initiator = testData.saveUser();
+        Event event = eventRepository.save(TestData.publishedEvent(initiator, testData.saveCategory())
+                .participantLimit(PARTICIPANT_LIMIT)
+                .requestModeration(true)
+                .build());
+        seedPendingRequests(event.getId());
+        List<Long> selected = jdbcTemplate.queryForList(
+                "SELECT id FROM requests WHERE event_id = ? ORDER BY created, id LIMIT " + SELECTED,
+                Long.class, event.getId());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        EventRequestStatusUpdateResult result = eventRequestService.updateStatus(initiator.getId(), event.getId(),
+                EventRequestStatusUpdateRequest.builder()
+                        .requestIds(selected)
+                        .status(RequestStatus.CONFIRMED)
+                        .build());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(STATEMENTS);
+
+        assertThat(result.getConfirmedRequests()).extracting(ParticipationRequestDto::getId)
+                .containsExactlyElementsOf(selected.subList(0, PARTICIPANT_LIMIT));
+        assertThat(result.getRejectedRequests()).extracting(ParticipationRequestDto::getId)
+                .containsExactlyElementsOf(selected.subList(PARTICIPANT_LIMIT, SELECTED));
+
+        Map<String, Long> stored = jdbcTemplate.queryForList(
+                        "SELECT status, COUNT(*) AS cnt FROM requests WHERE event_id = ? GROUP BY status", event.getId())
+                .stream()
+                .collect(Collectors.toMap(row -> (String) row.get("status"), row -> ((Number) row.get("cnt")).longValue()));
+        assertThat(stored).containsExactlyInAnyOrderEntriesOf(Map.of(
+                RequestStatus.CONFIRMED.name(), (long) PARTICIPANT_LIMIT,
+                RequestStatus.REJECTED.name(), (long) (PENDING - PARTICIPANT_LIMIT)));
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?",
+                Long.class, event.getId())).isEqualTo(PARTICIPANT_LIMIT);
+    }
+
+    private void seedPendingRequests(Long eventId) {
+        String prefix = TestData.unique("requester");
+        List<Object[]> users = new ArrayList<>(PENDING);
+        for (int i = 0; i < PENDING; i++) {
+            users.add(new Object[]{prefix + "-" + i, prefix + "-" + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)", users);
+
+        LocalDateTime created = LocalDateTime.now().minusDays(1);
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE name LIKE ? ORDER BY id",
+                Long.class, prefix + "-%");
+        List<Object[]> requests = new ArrayList<>(PENDING);
+        for (int i = 0; i < userIds.size(); i++) {
+            requests.add(new Object[]{eventId, userIds.get(i), Timestamp.valueOf(created.plusSeconds(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO requests (event_id, requester_id, status, created) " +
+                "VALUES (?, ?, 'PENDING', ?)", requests);
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.ewm.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.stat.StatisticsClient;
+import ru.practicum.stat.StatsBatchItemDto;
+import ru.practicum.stat.StatsBatchResultDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ViewCountServiceImplTest {
+
+    private static final int PAGE = 10;
+
+    @Test
+    void stalePageIsRefreshedWithOneBatchCall() throws Exception {
+        StatisticsClient statisticsClient = mock(StatisticsClient.class);
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> batchSizes = new ArrayList<>();
+        when(statisticsClient.getStatsBatch(anyList())).thenAnswer(invocation -> {
+            List<StatsBatchItemDto> items = invocation.getArgument(0);
+            long hits = calls.incrementAndGet();
+            synchronized (batchSizes) {
+                batchSizes.add(items.size());
+            }
+            return items.stream()
+                    .map(item -> StatsBatchResultDto.builder().uri(item.getUri()).hits(hits).build())
+                    .toList();
+        });
+        ViewCacheProperties properties = new ViewCacheProperties();
+        properties.setRefreshAfter(Duration.ofMillis(200));
+        ViewCountServiceImpl service = new ViewCountServiceImpl(statisticsClient, properties,
+                new SimpleMeterRegistry());
+        List<Event> events = new ArrayList<>();
+        for (long id = 1; id <= PAGE; id++) {
+            events.add(Event.builder().id(id).createdOn(LocalDateTime.now().minusDays(1)).views(0L).build());
+        }
+        try {
+            assertThat(service.getViews(events)).hasSize(PAGE).containsValue(1L);
+            TimeUnit.MILLISECONDS.sleep(300);
+
+            assertThat(service.getViews(events).values()).containsOnly(1L);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            Map<Long, Long> refreshed = service.getViews(events);
+            while (!refreshed.values().stream().allMatch(views -> views == 2L) && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+                refreshed = service.getViews(events);
+            }
+
+            assertThat(refreshed.values()).containsOnly(2L);
+            assertThat(calls.get()).isEqualTo(2);
+            assertThat(batchSizes).containsExactly(PAGE, PAGE);
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.ewm.stats.spool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.stat.EndpointHitCreateDto;
+import ru.practicum.stat.StatisticsClient;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HitSpoolReplayerTest {
+
+    private static final int MAX_URI_LENGTH = 20;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void rejectedHitGoesToDeadLetterAndDoesNotBlockSpool() throws Exception {
+        HitSpoolProperties properties = new HitSpoolProperties();
+        properties.setDirectory(directory.toString());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        HitSpool spool = new HitSpool(properties, "ewm-main-service",
+                new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+        spool.open();
+        spool.append(List.of(hit("/events/1"), hit("/events/" + "9".repeat(MAX_URI_LENGTH)), hit("/events/3")));
+
+        StatisticsClient statisticsClient = mock(StatisticsClient.class);
+        List<List<String>> calls = new ArrayList<>();
+        when(statisticsClient.createAll(anyList(), anyString())).thenAnswer(invocation -> {
+            List<EndpointHitCreateDto> hits = invocation.getArgument(0);
+            calls.add(hits.stream().map(EndpointHitCreateDto::getUri).toList());
+            boolean valid = hits.stream().allMatch(hit -> hit.getUri().length() <= MAX_URI_LENGTH);
+            return valid ? ResponseEntity.status(HttpStatus.CREATED).build() : ResponseEntity.badRequest().build();
+        });
+
+        new HitSpoolReplayer(spool, statisticsClient, properties, meterRegistry).replay();
+
+        assertThat(spool.getBacklog()).isZero();
+        assertThat(calls).hasSize(4);
+        assertThat(calls.getFirst()).hasSize(3);
+        List<String> deadLetter = Files.readAllLines(directory.resolve("dead-letter.ndjson"), StandardCharsets.UTF_8);
+        assertThat(deadLetter).hasSize(1);
+        assertThat(deadLetter.getFirst()).contains("9".repeat(MAX_URI_LENGTH));
+        assertThat(meterRegistry.get("stats.spool.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void unavailableServerKeepsBatchInSpool() throws Exception {
+        HitSpoolProperties properties = new HitSpoolProperties();
+        properties.setDirectory(directory.toString());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        HitSpool spool = new HitSpool(properties, "ewm-main-service", new ObjectMapper(), meterRegistry);
+        spool.open();
+        spool.append(List.of(hit("/events/1"), hit("/events/2")));
+
+        StatisticsClient statisticsClient = mock(StatisticsClient.class);
+        when(statisticsClient.createAll(anyList(), anyString()))
+                .thenReturn(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
+
+        new HitSpoolReplayer(spool, statisticsClient, properties, meterRegistry).replay();
+
+        assertThat(spool.getBacklog()).isEqualTo(2);
+        assertThat(Files.exists(directory.resolve("dead-letter.ndjson"))).isFalse();
+    }
+
+    private static EndpointHitCreateDto hit(String uri) {
+        return EndpointHitCreateDto.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("10.0.0.1")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
@@ -51,12 +51,30 @@ public class StatisticsClient extends BaseClient {
         return post(dto);
     }
 
+    public ResponseEntity<Object> createAll(List<EndpointHitCreateDto> dtos) {
+        return post("/hits", dtos);
+    }
+
+    public ResponseEntity<Object> createAll(List<EndpointHitCreateDto> dtos, String source) {
+        String url = UriComponentsBuilder.fromPath("/hits")
+                .queryParam("source", source)
+                .build()
+                .toUriString();
+        return post(url, dtos);
+    }
+
     public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+        return getStats(start, end, uris, unique, StatsPrecision.EXACT);
+    }
+
+    public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                           StatsPrecision precision) {
 
         UriComponentsBuilder builder = UriComponentsBuilder.fromPath("/stats")
                 .queryParam("start", start.format(formatter))
                 .queryParam("end", end.format(formatter))
-                .queryParam("unique", unique);
+                .queryParam("unique", unique)
+                .queryParam("precision", precision.name().toLowerCase());
 
         if (uris != null && !uris.isEmpty()) {
             builder.queryParam("uris", uris);
@@ -66,4 +84,15 @@ public class StatisticsClient extends BaseClient {
 
         return get(url);
     }
-}
\ No newline at end of file
+
+    /**
+     * Статистика по нескольким окнам за один запрос; результаты идут в порядке элементов запроса.
+     */
+    public List<StatsBatchResultDto> getStatsBatch(List<StatsBatchItemDto> items) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        StatsBatchResultDto[] results = postForObject("/stats/batch", items, StatsBatchResultDto[].class);
+        return results != null ? List.of(results) : List.of();
+    }
+}
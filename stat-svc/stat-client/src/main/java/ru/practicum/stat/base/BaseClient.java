@@ -5,6 +5,7 @@ import org.springframework.http.*;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import java.util.Collection;
 import java.util.List;
 
 @Slf4j
@@ -23,10 +24,15 @@ public class BaseClient {
     }
 
     protected ResponseEntity<Object> post(Object body) {
-        HttpEntity<Object> requestEntity = new HttpEntity<>(body);
+        return post("/hit", body);
+    }
+
+    protected ResponseEntity<Object> post(String path, Object body) {
+        HttpEntity<Object> requestEntity = new HttpEntity<>(body, defaultHeaders());
         try {
-            log.info("Отправка POST запроса на URL: {}, тело: {}", statsUri + "/hit", body);
-            ResponseEntity<Object> response = rest.postForEntity(statsUri + "/hit", requestEntity, Object.class);
+            log.info("Отправка POST запроса на URL: {}, элементов: {}", statsUri + path, itemCount(body));
+            log.debug("Тело POST запроса на URL {}: {}", statsUri + path, body);
+            ResponseEntity<Object> response = rest.postForEntity(statsUri + path, requestEntity, Object.class);
             log.info("Получен ответ от сервиса статистики, статус: {}", response.getStatusCode());
             return response;
         } catch (HttpStatusCodeException e) {
@@ -35,6 +41,12 @@ public class BaseClient {
         }
     }
 
+    protected <T> T postForObject(String path, Object body, Class<T> responseType) {
+        HttpEntity<Object> requestEntity = new HttpEntity<>(body, defaultHeaders());
+        log.info("Отправка POST запроса на URL: {}", statsUri + path);
+        return rest.postForObject(statsUri + path, requestEntity, responseType);
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(String path) {
         HttpEntity<T> requestEntity = new HttpEntity<>(null, defaultHeaders());
         ResponseEntity<Object> responseEntity;
@@ -49,6 +61,13 @@ public class BaseClient {
         return prepareResponse(responseEntity);
     }
 
+    private static int itemCount(Object body) {
+        if (body instanceof Collection<?> items) {
+            return items.size();
+        }
+        return body == null ? 0 : 1;
+    }
+
     private HttpHeaders defaultHeaders() {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -21,4 +21,5 @@ public class EndpointHitCreateDto {
     String ip;
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     LocalDateTime timestamp;
+    Long seq;
 }
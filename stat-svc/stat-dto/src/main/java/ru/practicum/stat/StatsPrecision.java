@@ -0,0 +1,19 @@
+package ru.practicum.stat;
+
+/**
+ * Точность подсчёта уникальных IP в GET /stats.
+ * APPROXIMATE объединяет HyperLogLog-скетчи, стандартная ошибка около 1.6%.
+ */
+public enum StatsPrecision {
+    EXACT,
+    APPROXIMATE;
+
+    public static StatsPrecision from(String value) {
+        for (StatsPrecision precision : values()) {
+            if (precision.name().equalsIgnoreCase(value)) {
+                return precision;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестная точность статистики: " + value);
+    }
+}
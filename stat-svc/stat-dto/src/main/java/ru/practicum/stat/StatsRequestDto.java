@@ -16,4 +16,5 @@ public class StatsRequestDto {
     LocalDateTime end;
     List<String> uris;
     Boolean unique;
+    StatsPrecision precision;
 }
@@ -0,0 +1,56 @@
+package ru.practicum.stat;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stat.model.EndpointHit;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO endpoint (app_id, uri_id, ip, created) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${stats.ingest.batch-size:500}")
+    private int batchSize;
+
+    public EndpointHit save(EndpointHit hit) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[]{"id"});
+            bind(ps, hit);
+            return ps;
+        }, keyHolder);
+        hit.setId(keyHolder.getKeyAs(Long.class));
+        return hit;
+    }
+
+    public int saveAll(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, hits, batchSize, EndpointHitBatchRepository::bind);
+        return hits.size();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private static void bind(PreparedStatement ps, EndpointHit hit) throws SQLException {
+        ps.setInt(1, hit.getAppId());
+        ps.setLong(2, hit.getUriId());
+        ps.setBytes(3, hit.getIpBinary());
+        ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+    }
+}
@@ -1,42 +1,118 @@
 package ru.practicum.stat;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import ru.practicum.stat.model.EndpointHit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stat.model.HitCountWindow;
 import ru.practicum.stat.model.ViewStats;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public interface EndpointHitRepository extends JpaRepository<EndpointHit, Long> {
-
-    @Query("SELECT new ru.practicum.stat.model.ViewStats(e.app, e.uri, COUNT(DISTINCT e.ip)) " +
-            "FROM EndpointHit e " +
-            "WHERE e.timestamp BETWEEN ?1 AND ?2 " +
-            "AND e.uri IN (?3) " +
-            "GROUP BY e.app, e.uri " +
-            "ORDER BY COUNT(DISTINCT e.ip) DESC")
-    List<ViewStats> findStatsUniqueIp(LocalDateTime start, LocalDateTime end, List<String> uris);
-
-    @Query("SELECT new ru.practicum.stat.model.ViewStats(e.app, e.uri, COUNT(DISTINCT e.ip)) " +
-            "FROM EndpointHit e " +
-            "WHERE e.timestamp BETWEEN ?1 AND ?2 " +
-            "GROUP BY e.app, e.uri " +
-            "ORDER BY COUNT(DISTINCT e.ip) DESC")
-    List<ViewStats> findStatsUniqueIpAllUris(LocalDateTime start, LocalDateTime end);
-
-    @Query("SELECT new ru.practicum.stat.model.ViewStats(e.app, e.uri, COUNT(e.ip)) " +
-            "FROM EndpointHit e " +
-            "WHERE e.timestamp BETWEEN ?1 AND ?2 " +
-            "AND e.uri IN (?3) " +
-            "GROUP BY e.app, e.uri " +
-            "ORDER BY COUNT(e.ip) DESC")
-    List<ViewStats> findStats(LocalDateTime start, LocalDateTime end, List<String> uris);
-
-    @Query("SELECT new ru.practicum.stat.model.ViewStats(e.app, e.uri, COUNT(e.ip)) " +
-            "FROM EndpointHit e " +
-            "WHERE e.timestamp BETWEEN ?1 AND ?2 " +
-            "GROUP BY e.app, e.uri " +
-            "ORDER BY COUNT(e.ip) DESC")
-    List<ViewStats> findStatsAllUris(LocalDateTime start, LocalDateTime end);
-}
\ No newline at end of file
+@Repository
+public class EndpointHitRepository {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final NamedParameterJdbcTemplate exportJdbcTemplate;
+    private final HitDictionaryRepository hitDictionaryRepository;
+
+    public EndpointHitRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 HitDictionaryRepository hitDictionaryRepository,
+                                 @Value("${stats.export.fetch-size:1000}") int exportFetchSize) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.hitDictionaryRepository = hitDictionaryRepository;
+        JdbcTemplate cursorTemplate = new JdbcTemplate(namedParameterJdbcTemplate.getJdbcTemplate().getDataSource());
+        cursorTemplate.setFetchSize(exportFetchSize);
+        this.exportJdbcTemplate = new NamedParameterJdbcTemplate(cursorTemplate);
+    }
+
+    /**
+     * Точный подсчёт уникальных IP по сырым хитам; uriIds == null означает все uri.
+     */
+    public List<ViewStats> findStatsUniqueIp(LocalDateTime start, LocalDateTime end, List<Long> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        String uriFilter = "";
+        if (uriIds != null) {
+            params.addValue("uriIds", uriIds);
+            uriFilter = " AND uri_id IN (:uriIds)";
+        }
+        return namedParameterJdbcTemplate.query("SELECT app_id, uri_id, COUNT(DISTINCT ip) AS hits FROM endpoint " +
+                        "WHERE created BETWEEN :start AND :end" + uriFilter +
+                        " GROUP BY app_id, uri_id ORDER BY hits DESC", params,
+                (rs, rowNum) -> ViewStats.builder()
+                        .app(hitDictionaryRepository.getApp(rs.getInt("app_id")))
+                        .uri(hitDictionaryRepository.getUri(rs.getLong("uri_id")))
+                        .hits(rs.getLong("hits"))
+                        .build());
+    }
+
+    /**
+     * Число уникальных IP по каждому окну пакетного запроса одним запросом: окна передаются списком VALUES
+     * и соединяются с endpoint, общий диапазон дат отсекает лишние партиции. Как и в findStatsUniqueIp,
+     * IP считаются отдельно по каждому приложению. Ключ результата — index окна, окна без хитов в результат не попадают.
+     */
+    public Map<Integer, Long> countUniqueHits(List<HitCountWindow> windows) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> values = new ArrayList<>(windows.size());
+        LocalDateTime unionStart = windows.getFirst().start();
+        LocalDateTime unionEnd = windows.getFirst().end();
+        for (HitCountWindow window : windows) {
+            int i = window.index();
+            params.addValue("idx" + i, i)
+                    .addValue("uri" + i, window.uriId())
+                    .addValue("start" + i, Timestamp.valueOf(window.start()))
+                    .addValue("end" + i, Timestamp.valueOf(window.end()));
+            values.add("(CAST(:idx" + i + " AS INT), CAST(:uri" + i + " AS BIGINT), CAST(:start" + i +
+                    " AS TIMESTAMP), CAST(:end" + i + " AS TIMESTAMP))");
+            unionStart = window.start().isBefore(unionStart) ? window.start() : unionStart;
+            unionEnd = window.end().isAfter(unionEnd) ? window.end() : unionEnd;
+        }
+        params.addValue("unionStart", Timestamp.valueOf(unionStart))
+                .addValue("unionEnd", Timestamp.valueOf(unionEnd));
+
+        String sql = "SELECT idx, SUM(hits) AS hits FROM (" +
+                "SELECT w.idx, COUNT(DISTINCT e.ip) AS hits " +
+                "FROM (VALUES " + String.join(", ", values) + ") AS w(idx, uri_id, start_at, end_at) " +
+                "JOIN endpoint e ON e.uri_id = w.uri_id AND e.created BETWEEN w.start_at AND w.end_at " +
+                "WHERE e.created BETWEEN :unionStart AND :unionEnd " +
+                "GROUP BY w.idx, e.app_id) c GROUP BY idx";
+        Map<Integer, Long> hits = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            hits.put(rs.getInt("idx"), rs.getLong("hits"));
+        });
+        return hits;
+    }
+
+    /**
+     * Потоковое чтение сырых хитов в порядке id. Postgres отдаёт строки через серверный курсор
+     * порциями по fetch-size, поэтому вызывать нужно внутри транзакции.
+     */
+    public void streamHits(LocalDateTime start, LocalDateTime end, Integer appId, List<Long> uriIds, long afterId,
+                           RowCallbackHandler handler) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end))
+                .addValue("afterId", afterId);
+        StringBuilder sql = new StringBuilder("SELECT id, app_id, uri_id, ip, created FROM endpoint " +
+                "WHERE created BETWEEN :start AND :end AND id > :afterId");
+        if (appId != null) {
+            params.addValue("appId", appId);
+            sql.append(" AND app_id = :appId");
+        }
+        if (uriIds != null) {
+            params.addValue("uriIds", uriIds);
+            sql.append(" AND uri_id IN (:uriIds)");
+        }
+        sql.append(" ORDER BY id");
+        exportJdbcTemplate.query(sql.toString(), params, handler);
+    }
+}
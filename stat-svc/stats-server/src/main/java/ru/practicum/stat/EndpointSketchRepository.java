@@ -0,0 +1,137 @@
+package ru.practicum.stat;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stat.model.RollupGranularity;
+import ru.practicum.stat.model.RollupKey;
+import ru.practicum.stat.model.StatsWindow;
+import ru.practicum.stat.model.ViewStats;
+import ru.practicum.stat.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class EndpointSketchRepository {
+
+    private static final String POSTGRES_INSERT_IF_ABSENT_SQL = "INSERT INTO %s (uri_id, bucket, app_id, registers) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT (uri_id, bucket, app_id) DO NOTHING";
+
+    private static final String MERGE_IF_ABSENT_SQL = "MERGE INTO %s r USING (SELECT CAST(? AS BIGINT) uri_id, " +
+            "CAST(? AS TIMESTAMP) bucket, CAST(? AS INT) app_id, CAST(? AS VARBINARY) registers) s " +
+            "ON r.uri_id = s.uri_id AND r.bucket = s.bucket AND r.app_id = s.app_id " +
+            "WHEN NOT MATCHED THEN INSERT (uri_id, bucket, app_id, registers) " +
+            "VALUES (s.uri_id, s.bucket, s.app_id, s.registers)";
+
+    private static final int MERGE_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SqlDialect sqlDialect;
+    private final HitDictionaryRepository hitDictionaryRepository;
+
+    /**
+     * Оценка числа уникальных IP: целые бакеты берутся из скетчей, края окна досчитываются по сырым строкам.
+     * uriIds == null означает все uri.
+     */
+    public List<ViewStats> findUniqueStats(StatsWindow window, List<Long> uriIds) {
+        boolean filterUris = uriIds != null;
+        String uriFilter = filterUris ? " AND uri_id IN (:uriIds)" : "";
+        Map<AppUri, HyperLogLog> result = new HashMap<>();
+
+        for (StatsWindow.Range range : window.getRanges()) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("from", Timestamp.valueOf(range.from()))
+                    .addValue("to", Timestamp.valueOf(range.to()));
+            if (filterUris) {
+                params.addValue("uriIds", uriIds);
+            }
+            String upperBound = range.toInclusive() ? " <= :to" : " < :to";
+            if (range.isRaw()) {
+                namedParameterJdbcTemplate.query("SELECT DISTINCT app_id, uri_id, ip FROM endpoint " +
+                                "WHERE created >= :from AND created" + upperBound + uriFilter, params,
+                        rs -> {
+                            AppUri key = new AppUri(rs.getInt("app_id"), rs.getLong("uri_id"));
+                            result.computeIfAbsent(key, k -> new HyperLogLog()).add(rs.getBytes("ip"));
+                        });
+            } else {
+                namedParameterJdbcTemplate.query("SELECT app_id, uri_id, registers FROM " +
+                                range.granularity().getSketchTable() +
+                                " WHERE bucket >= :from AND bucket" + upperBound + uriFilter, params,
+                        rs -> {
+                            AppUri key = new AppUri(rs.getInt("app_id"), rs.getLong("uri_id"));
+                            HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("registers"));
+                            result.computeIfAbsent(key, k -> new HyperLogLog()).merge(sketch);
+                        });
+            }
+        }
+
+        return result.entrySet().stream()
+                .map(entry -> ViewStats.builder()
+                        .app(hitDictionaryRepository.getApp(entry.getKey().appId()))
+                        .uri(hitDictionaryRepository.getUri(entry.getKey().uriId()))
+                        .hits(entry.getValue().estimate())
+                        .build())
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    /**
+     * Объединяет скетчи с сохранёнными: недостающие строки вставляются пустыми, затем строки читаются
+     * под блокировкой порциями по merge-chunk-size ключей и перезаписываются одним пакетом UPDATE.
+     * Ключи упорядочены, чтобы параллельные слияния блокировали строки в одном порядке.
+     */
+    public void merge(RollupGranularity granularity, Map<RollupKey, HyperLogLog> sketches) {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        String table = granularity.getSketchTable();
+        String insertSql = String.format(sqlDialect.isPostgres() ? POSTGRES_INSERT_IF_ABSENT_SQL : MERGE_IF_ABSENT_SQL,
+                table);
+        List<RollupKey> keys = new ArrayList<>(sketches.keySet());
+        Collections.sort(keys);
+        byte[] empty = new HyperLogLog().toBytes();
+        jdbcTemplate.batchUpdate(insertSql, keys, keys.size(), (ps, key) -> {
+            ps.setLong(1, key.uriId());
+            ps.setTimestamp(2, Timestamp.valueOf(key.bucket()));
+            ps.setInt(3, key.appId());
+            ps.setBytes(4, empty);
+        });
+
+        List<Object[]> updates = new ArrayList<>(keys.size());
+        for (int from = 0; from < keys.size(); from += MERGE_CHUNK_SIZE) {
+            List<RollupKey> chunk = keys.subList(from, Math.min(from + MERGE_CHUNK_SIZE, keys.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (RollupKey key : chunk) {
+                args.add(key.uriId());
+                args.add(Timestamp.valueOf(key.bucket()));
+                args.add(key.appId());
+            }
+            jdbcTemplate.query("SELECT uri_id, bucket, app_id, registers FROM " + table +
+                            " WHERE (uri_id, bucket, app_id) IN (" +
+                            String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?)")) + ")" +
+                            " ORDER BY uri_id, bucket, app_id FOR UPDATE",
+                    rs -> {
+                        Timestamp bucket = rs.getTimestamp("bucket");
+                        RollupKey key = new RollupKey(rs.getLong("uri_id"), bucket.toLocalDateTime(), rs.getInt("app_id"));
+                        HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("registers"));
+                        sketch.merge(sketches.get(key));
+                        updates.add(new Object[]{sketch.toBytes(), key.uriId(), bucket, key.appId()});
+                    }, args.toArray());
+        }
+        jdbcTemplate.batchUpdate("UPDATE " + table +
+                " SET registers = ? WHERE uri_id = ? AND bucket = ? AND app_id = ?", updates);
+    }
+
+    private record AppUri(int appId, long uriId) {
+    }
+}
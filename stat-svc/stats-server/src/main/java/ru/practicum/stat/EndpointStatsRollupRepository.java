@@ -0,0 +1,165 @@
+package ru.practicum.stat;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stat.model.EndpointHit;
+import ru.practicum.stat.model.HitCountWindow;
+import ru.practicum.stat.model.RollupGranularity;
+import ru.practicum.stat.model.RollupKey;
+import ru.practicum.stat.model.StatsWindow;
+import ru.practicum.stat.model.ViewStats;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Repository
+@RequiredArgsConstructor
+public class EndpointStatsRollupRepository {
+
+    private static final String POSTGRES_UPSERT_SQL = "INSERT INTO %1$s (uri_id, bucket, app_id, hits) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT (uri_id, bucket, app_id) DO UPDATE SET hits = %1$s.hits + EXCLUDED.hits";
+
+    private static final String MERGE_SQL = "MERGE INTO %1$s r USING (SELECT CAST(? AS BIGINT) uri_id, " +
+            "CAST(? AS TIMESTAMP) bucket, CAST(? AS INT) app_id, CAST(? AS BIGINT) hits) s " +
+            "ON r.uri_id = s.uri_id AND r.bucket = s.bucket AND r.app_id = s.app_id " +
+            "WHEN MATCHED THEN UPDATE SET hits = r.hits + s.hits " +
+            "WHEN NOT MATCHED THEN INSERT (uri_id, bucket, app_id, hits) VALUES (s.uri_id, s.bucket, s.app_id, s.hits)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SqlDialect sqlDialect;
+    private final HitDictionaryRepository hitDictionaryRepository;
+
+    public void increment(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            // Ключи упорядочены, чтобы параллельные пакеты блокировали строки в одном порядке
+            Map<RollupKey, Long> counts = new TreeMap<>();
+            for (EndpointHit hit : hits) {
+                RollupKey key = new RollupKey(hit.getUriId(), granularity.floor(hit.getTimestamp()),
+                        hit.getAppId());
+                counts.merge(key, 1L, Long::sum);
+            }
+            List<Map.Entry<RollupKey, Long>> rows = new ArrayList<>(counts.entrySet());
+            String sql = String.format(sqlDialect.isPostgres() ? POSTGRES_UPSERT_SQL : MERGE_SQL, granularity.getTable());
+            jdbcTemplate.batchUpdate(sql, rows, rows.size(),
+                    (ps, row) -> {
+                        ps.setLong(1, row.getKey().uriId());
+                        ps.setTimestamp(2, Timestamp.valueOf(row.getKey().bucket()));
+                        ps.setInt(3, row.getKey().appId());
+                        ps.setLong(4, row.getValue());
+                    });
+        }
+    }
+
+    /**
+     * uriIds == null означает все uri.
+     */
+    public List<ViewStats> findStats(StatsWindow window, List<Long> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        boolean filterUris = uriIds != null;
+        if (filterUris) {
+            params.addValue("uriIds", uriIds);
+        }
+
+        List<String> parts = new ArrayList<>();
+        int index = 0;
+        for (StatsWindow.Range range : window.getRanges()) {
+            String from = "from" + index;
+            String to = "to" + index;
+            params.addValue(from, Timestamp.valueOf(range.from()));
+            params.addValue(to, Timestamp.valueOf(range.to()));
+            String upperBound = range.toInclusive() ? " <= :" : " < :";
+            String uriFilter = filterUris ? " AND uri_id IN (:uriIds)" : "";
+            if (range.isRaw()) {
+                parts.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoint " +
+                        "WHERE created >= :" + from + " AND created" + upperBound + to + uriFilter +
+                        " GROUP BY app_id, uri_id");
+            } else {
+                parts.add("SELECT app_id, uri_id, SUM(hits) AS hits FROM " + range.granularity().getTable() +
+                        " WHERE bucket >= :" + from + " AND bucket" + upperBound + to + uriFilter +
+                        " GROUP BY app_id, uri_id");
+            }
+            index++;
+        }
+
+        String sql = "SELECT app_id, uri_id, SUM(hits) AS hits FROM (" + String.join(" UNION ALL ", parts) + ") t " +
+                "GROUP BY app_id, uri_id ORDER BY hits DESC";
+        return namedParameterJdbcTemplate.query(sql, params, (rs, rowNum) -> ViewStats.builder()
+                .app(hitDictionaryRepository.getApp(rs.getInt("app_id")))
+                .uri(hitDictionaryRepository.getUri(rs.getLong("uri_id")))
+                .hits(rs.getLong("hits"))
+                .build());
+    }
+
+    /**
+     * Число хитов по каждому окну пакетного запроса: окна разбиваются на бакеты так же, как в findStats,
+     * диапазоны одной гранулярности передаются одним списком VALUES и соединяются со своей таблицей.
+     * Бакеты раньше keptFrom уже удалены по сроку хранения, эти части окон читаются из сырых строк.
+     * Ключ результата — index окна, окна без хитов в результат не попадают.
+     */
+    public Map<Integer, Long> countHits(List<HitCountWindow> windows, Map<RollupGranularity, LocalDateTime> keptFrom) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> rawRows = new ArrayList<>();
+        Map<RollupGranularity, List<String>> bucketRows = new EnumMap<>(RollupGranularity.class);
+        LocalDateTime rawStart = null;
+        LocalDateTime rawEnd = null;
+        int index = 0;
+        for (HitCountWindow window : windows) {
+            for (StatsWindow.Range range : StatsWindow.of(window.start(), window.end(), RollupGranularity.MINUTE, keptFrom)
+                    .getRanges()) {
+                String p = "r" + index++;
+                params.addValue(p + "idx", window.index())
+                        .addValue(p + "uri", window.uriId())
+                        .addValue(p + "from", Timestamp.valueOf(range.from()))
+                        .addValue(p + "to", Timestamp.valueOf(range.to()))
+                        .addValue(p + "incl", range.toInclusive());
+                String row = "(CAST(:" + p + "idx AS INT), CAST(:" + p + "uri AS BIGINT), CAST(:" + p +
+                        "from AS TIMESTAMP), CAST(:" + p + "to AS TIMESTAMP), CAST(:" + p + "incl AS BOOLEAN))";
+                if (range.isRaw()) {
+                    rawRows.add(row);
+                    rawStart = rawStart == null || range.from().isBefore(rawStart) ? range.from() : rawStart;
+                    rawEnd = rawEnd == null || range.to().isAfter(rawEnd) ? range.to() : rawEnd;
+                } else {
+                    bucketRows.computeIfAbsent(range.granularity(), g -> new ArrayList<>()).add(row);
+                }
+            }
+        }
+
+        List<String> parts = new ArrayList<>();
+        if (!rawRows.isEmpty()) {
+            // Общий диапазон краёв отсекает лишние партиции endpoint
+            params.addValue("rawStart", Timestamp.valueOf(rawStart))
+                    .addValue("rawEnd", Timestamp.valueOf(rawEnd));
+            parts.add(countRanges("endpoint", "created", "COUNT(*)", rawRows) +
+                    " AND t.created BETWEEN :rawStart AND :rawEnd GROUP BY w.idx");
+        }
+        bucketRows.forEach((granularity, rows) ->
+                parts.add(countRanges(granularity.getTable(), "bucket", "SUM(t.hits)", rows) + " GROUP BY w.idx"));
+
+        String sql = "SELECT idx, SUM(hits) AS hits FROM (" + String.join(" UNION ALL ", parts) + ") c GROUP BY idx";
+        Map<Integer, Long> hits = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            hits.put(rs.getInt("idx"), rs.getLong("hits"));
+        });
+        return hits;
+    }
+
+    private static String countRanges(String table, String column, String aggregate, List<String> rows) {
+        String value = "t." + column;
+        return "SELECT w.idx, " + aggregate + " AS hits FROM (VALUES " + String.join(", ", rows) +
+                ") AS w(idx, uri_id, from_at, to_at, incl) JOIN " + table + " t ON t.uri_id = w.uri_id AND " +
+                value + " >= w.from_at AND (" + value + " < w.to_at OR (w.incl AND " + value + " = w.to_at))";
+    }
+}
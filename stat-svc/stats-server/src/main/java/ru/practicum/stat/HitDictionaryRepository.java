@@ -0,0 +1,206 @@
+package ru.practicum.stat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словари app и uri: хиты и роллапы хранят числовые id вместо строк.
+ * Новые значения добавляются в транзакции вызывающего, а в кэш id попадает только после её коммита,
+ * поэтому закэшированный id всегда указывает на закоммиченную строку словаря.
+ */
+@Repository
+public class HitDictionaryRepository {
+
+    private static final String APP_TABLE = "app_dictionary";
+    private static final String URI_TABLE = "uri_dictionary";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    private final Map<String, Integer> appIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> appNames = new ConcurrentHashMap<>();
+    private final Map<String, Long> uriIds;
+    private final Map<Long, String> uris;
+
+    public HitDictionaryRepository(JdbcTemplate jdbcTemplate,
+                                   NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                   SqlDialect sqlDialect,
+                                   @Value("${stats.dictionary.uri-cache-size:100000}") int uriCacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.sqlDialect = sqlDialect;
+        this.uriIds = lruCache(uriCacheSize);
+        this.uris = lruCache(uriCacheSize);
+    }
+
+    public int getAppId(String app) {
+        return getAppIds(List.of(app)).get(app);
+    }
+
+    public long getUriId(String uri) {
+        return getUriIds(List.of(uri)).get(uri);
+    }
+
+    /**
+     * id для всех app пакета; отсутствующие в словаре добавляются в текущей транзакции.
+     */
+    public Map<String, Integer> getAppIds(Collection<String> values) {
+        Map<String, Integer> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String value : new TreeSet<>(values)) {
+            Integer id = appIds.get(value);
+            if (id != null) {
+                found.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+        Map<String, Integer> resolved = new HashMap<>();
+        resolve(APP_TABLE, "name", missing).forEach((value, id) -> resolved.put(value, Math.toIntExact(id)));
+        cacheAfterCommit(appIds, resolved);
+        found.putAll(resolved);
+        return found;
+    }
+
+    /**
+     * id для всех uri пакета; отсутствующие в словаре добавляются в текущей транзакции.
+     */
+    public Map<String, Long> getUriIds(Collection<String> values) {
+        Map<String, Long> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String value : new TreeSet<>(values)) {
+            Long id = uriIds.get(value);
+            if (id != null) {
+                found.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+        Map<String, Long> resolved = resolve(URI_TABLE, "uri", missing);
+        cacheAfterCommit(uriIds, resolved);
+        found.putAll(resolved);
+        return found;
+    }
+
+    public String getApp(int id) {
+        return appNames.computeIfAbsent(id, key -> jdbcTemplate.queryForObject(
+                "SELECT name FROM " + APP_TABLE + " WHERE id = ?", String.class, key));
+    }
+
+    public String getUri(long id) {
+        String uri = uris.get(id);
+        if (uri == null) {
+            uri = jdbcTemplate.queryForObject("SELECT uri FROM " + URI_TABLE + " WHERE id = ?", String.class, id);
+            uris.put(id, uri);
+        }
+        return uri;
+    }
+
+    public Optional<Integer> findAppId(String app) {
+        Integer id = appIds.get(app);
+        if (id == null) {
+            id = jdbcTemplate.queryForList("SELECT id FROM " + APP_TABLE + " WHERE name = ?", Integer.class, app)
+                    .stream().findFirst().orElse(null);
+        }
+        return Optional.ofNullable(id);
+    }
+
+    /**
+     * id известных uri; неизвестные uri в словарь не добавляются и в результат не попадают.
+     */
+    public List<Long> findUriIds(Collection<String> values) {
+        return List.copyOf(findUriIdsByUri(values).values());
+    }
+
+    public Map<String, Long> findUriIdsByUri(Collection<String> values) {
+        Map<String, Long> found = new HashMap<>();
+        List<String> missing = values.stream()
+                .filter(value -> {
+                    Long id = uriIds.get(value);
+                    if (id != null) {
+                        found.put(value, id);
+                    }
+                    return id == null;
+                })
+                .toList();
+        if (!missing.isEmpty()) {
+            namedParameterJdbcTemplate.query("SELECT id, uri FROM " + URI_TABLE + " WHERE uri IN (:uris)",
+                    new MapSqlParameterSource("uris", missing),
+                    rs -> {
+                        found.put(rs.getString("uri"), rs.getLong("id"));
+                        uriIds.put(rs.getString("uri"), rs.getLong("id"));
+                    });
+        }
+        return found;
+    }
+
+    /**
+     * Вставка идёт в транзакции приёма хитов, без второго соединения из пула. Значения отсортированы,
+     * поэтому параллельные пакеты ждут друг друга на уникальном индексе в одном порядке и не взаимоблокируются.
+     */
+    private Map<String, Long> resolve(String table, String column, List<String> values) {
+        if (values.isEmpty()) {
+            return Map.of();
+        }
+        String insertSql = sqlDialect.isPostgres()
+                ? "INSERT INTO " + table + " (" + column + ") VALUES (?) ON CONFLICT (" + column + ") DO NOTHING"
+                : "MERGE INTO " + table + " d USING (SELECT CAST(? AS VARCHAR(255)) v) s ON d." + column +
+                " = s.v WHEN NOT MATCHED THEN INSERT (" + column + ") VALUES (s.v)";
+        jdbcTemplate.batchUpdate(insertSql, values.stream().map(value -> new Object[]{value}).toList());
+        Map<String, Long> ids = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, " + column + " FROM " + table + " WHERE " + column +
+                        " IN (:values)", new MapSqlParameterSource("values", values),
+                rs -> {
+                    ids.put(rs.getString(column), rs.getLong("id"));
+                });
+        if (ids.size() != values.size()) {
+            throw new IllegalStateException("Не удалось получить id словаря " + table + " для " + values);
+        }
+        return ids;
+    }
+
+    /**
+     * Кэш заполняется только после коммита, чтобы id из откатившейся транзакции не попал в кэш.
+     */
+    private static <V> void cacheAfterCommit(Map<String, V> cache, Map<String, V> resolved) {
+        if (resolved.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.putAll(resolved);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.putAll(resolved);
+            }
+        });
+    }
+
+    private static <K, V> Map<K, V> lruCache(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+}
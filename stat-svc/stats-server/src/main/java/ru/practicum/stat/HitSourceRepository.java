@@ -0,0 +1,28 @@
+package ru.practicum.stat;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class HitSourceRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long lockLastSeq(String source) {
+        List<Long> lastSeq = jdbcTemplate.queryForList(
+                "SELECT last_seq FROM hit_source WHERE source = ? FOR UPDATE", Long.class, source);
+        if (!lastSeq.isEmpty()) {
+            return lastSeq.getFirst();
+        }
+        jdbcTemplate.update("INSERT INTO hit_source (source, last_seq) VALUES (?, 0)", source);
+        return 0L;
+    }
+
+    public void updateLastSeq(String source, long lastSeq) {
+        jdbcTemplate.update("UPDATE hit_source SET last_seq = ? WHERE source = ?", lastSeq, source);
+    }
+}
@@ -1,17 +1,32 @@
 package ru.practicum.stat.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.stat.EndpointHitBatchRepository;
 import ru.practicum.stat.EndpointHitCreateDto;
 import ru.practicum.stat.EndpointHitDto;
+import ru.practicum.stat.StatsBatchItemDto;
+import ru.practicum.stat.StatsBatchResultDto;
+import ru.practicum.stat.StatsPrecision;
 import ru.practicum.stat.StatsRequestDto;
 import ru.practicum.stat.ViewStatsDto;
+import ru.practicum.stat.model.HitExportFormat;
+import ru.practicum.stat.model.HitExportRequest;
 import ru.practicum.stat.service.StatisticsService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -20,7 +35,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class StatsController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final StatisticsService statisticsService;
+    private final EndpointHitBatchRepository endpointHitBatchRepository;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -29,22 +48,95 @@ public class StatsController {
         return statisticsService.create(endpoint);
     }
 
+    @PostMapping(value = "/hits", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public void createAll(@RequestBody List<EndpointHitCreateDto> endpoints,
+                          @RequestParam(required = false) String source) {
+        log.info("POST запрос на пакетное создание EndpointHit, количество: {}, источник: {}", endpoints.size(), source);
+        statisticsService.createAll(endpoints, source);
+    }
+
+    @PostMapping(value = "/hits", consumes = APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public void createAllFromStream(HttpServletRequest request,
+                                    @RequestParam(required = false) String source) throws IOException {
+        log.info("POST запрос на потоковое создание EndpointHit");
+        int batchSize = endpointHitBatchRepository.getBatchSize();
+        List<EndpointHitCreateDto> chunk = new ArrayList<>(batchSize);
+        int total = 0;
+        try (BufferedReader reader = request.getReader()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(objectMapper.readValue(line, EndpointHitCreateDto.class));
+                if (chunk.size() == batchSize) {
+                    total += statisticsService.createAll(chunk, source);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            total += statisticsService.createAll(chunk, source);
+        }
+        log.info("Потоковая загрузка завершена, сохранено хитов: {}", total);
+    }
+
+    @GetMapping("/hits/export")
+    public ResponseEntity<StreamingResponseBody> exportHits(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam(required = false) String app,
+            @RequestParam(required = false) String uri,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        log.info("GET запрос на выгрузку хитов: start={}, end={}, app={}, uri={}, afterId={}, format={}",
+                start, end, app, uri, afterId, format);
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start date must be before end date");
+        }
+        HitExportRequest request = HitExportRequest.builder()
+                .start(start)
+                .end(end)
+                .app(app)
+                .uri(uri)
+                .afterId(afterId)
+                .format(HitExportFormat.from(format))
+                .build();
+
+        StreamingResponseBody body = out -> statisticsService.exportHits(request, out);
+        return ResponseEntity.ok()
+                .contentType(request.getFormat().getMediaType())
+                .body(body);
+    }
+
     @GetMapping("/stats")
     public List<ViewStatsDto> getStats(
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
             @RequestParam(required = false) List<String> uris,
-            @RequestParam(defaultValue = "false") Boolean unique) {
+            @RequestParam(defaultValue = "false") Boolean unique,
+            @RequestParam(defaultValue = "exact") String precision) {
 
-        log.info("GET запрос на получение статистики: start={}, end={}, uris={}, unique={}", start, end, uris, unique);
+        log.info("GET запрос на получение статистики: start={}, end={}, uris={}, unique={}, precision={}",
+                start, end, uris, unique, precision);
 
         StatsRequestDto request = StatsRequestDto.builder()
                 .start(start)
                 .end(end)
                 .uris(uris)
                 .unique(unique)
+                .precision(StatsPrecision.from(precision))
                 .build();
 
         return statisticsService.getStats(request);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/stats/batch")
+    public List<StatsBatchResultDto> getStatsBatch(@RequestBody List<StatsBatchItemDto> items) {
+        log.info("POST запрос на пакетное получение статистики, окон: {}", items.size());
+        return statisticsService.getStatsBatch(items);
+    }
+}
@@ -0,0 +1,269 @@
+package ru.practicum.stat.hot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stat.HitDictionaryRepository;
+import ru.practicum.stat.model.EndpointHit;
+import ru.practicum.stat.model.ViewStats;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Счётчики хитов за последние часы в памяти stats-server.
+ * Кольцо поминутных бакетов; в бакете на каждую пару (app, uri) хранятся счётчики по секундам
+ * и множество IP с битовой маской секунд, в которые IP встречался.
+ * IP хранится в том же закодированном виде, что и в колонке endpoint.ip (см. IpEncoder): адрес целиком,
+ * поэтому уникальные IP считаются точно и совпадают с COUNT(DISTINCT ip) по базе.
+ * Окно обслуживается из памяти, только если все его минуты заведомо полностью учтены движком,
+ * иначе запрос уходит в базу. Если в ячейке минуты больше max-distinct-per-bucket разных IP, множество
+ * сбрасывается и уникальные запросы по этой минуте считаются в базе (метрика stats.hot-window.overflow.fallbacks).
+ * Движок видит только хиты, принятые этим экземпляром stats-server.
+ */
+@Slf4j
+@Component
+public class HotWindowEngine {
+
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    private final HitDictionaryRepository hitDictionaryRepository;
+    private final boolean enabled;
+    private final int windowMinutes;
+    private final int maxDistinctPerBucket;
+    private final AtomicReferenceArray<MinuteBucket> ring;
+    private final long startedMinute;
+    private final AtomicLong lostMinute = new AtomicLong(Long.MIN_VALUE);
+    private final Counter overflowedCells;
+    private final Counter overflowFallbacks;
+
+    public HotWindowEngine(HitDictionaryRepository hitDictionaryRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${stats.hot-window.enabled:true}") boolean enabled,
+                           @Value("${stats.hot-window.hours:6}") int hours,
+                           @Value("${stats.hot-window.max-distinct-per-bucket:10000}") int maxDistinctPerBucket) {
+        this.hitDictionaryRepository = hitDictionaryRepository;
+        this.enabled = enabled;
+        this.windowMinutes = hours * 60;
+        this.maxDistinctPerBucket = maxDistinctPerBucket;
+        // Два запасных слота: минута «из будущего» не должна затирать минуты внутри окна
+        this.ring = new AtomicReferenceArray<>(windowMinutes + 2);
+        this.startedMinute = currentMinute();
+        this.overflowedCells = Counter.builder("stats.hot-window.overflow.cells")
+                .description("Ячейки минуты, в которых множество IP превысило max-distinct-per-bucket")
+                .register(meterRegistry);
+        this.overflowFallbacks = Counter.builder("stats.hot-window.overflow.fallbacks")
+                .description("Запросы уникальных IP, ушедшие в базу из-за переполненной ячейки")
+                .register(meterRegistry);
+        log.info("Горячее окно статистики: включено={}, часов={}", enabled, hours);
+    }
+
+    /**
+     * Учитывает хиты после коммита текущей транзакции, чтобы в памяти не оказалось откаченных хитов.
+     */
+    public void recordAfterCommit(List<EndpointHit> hits) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(hits);
+                }
+            });
+        } else {
+            record(hits);
+        }
+    }
+
+    public Optional<List<ViewStats>> query(LocalDateTime start, LocalDateTime end, Collection<Long> uriIds,
+                                           boolean unique) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+        long firstMinute = Math.floorDiv(startSecond, SECONDS_PER_MINUTE);
+        long lastMinute = Math.floorDiv(endSecond, SECONDS_PER_MINUTE);
+        long now = currentMinute();
+        long coveredFrom = Math.max(Math.max(startedMinute + 1, lostMinute.get() + 1), now - windowMinutes + 1);
+        if (firstMinute < coveredFrom) {
+            return Optional.empty();
+        }
+
+        Set<Long> uriFilter = uriIds == null ? null : new HashSet<>(uriIds);
+        Map<CellKey, Long> totals = new HashMap<>();
+        Map<CellKey, Set<IpKey>> distinctIps = new HashMap<>();
+        for (long minute = firstMinute; minute <= Math.min(lastMinute, now + 1); minute++) {
+            MinuteBucket bucket = ring.get(slot(minute));
+            if (bucket == null || bucket.minute != minute) {
+                continue;
+            }
+            int fromSecond = minute == firstMinute ? (int) Math.floorMod(startSecond, SECONDS_PER_MINUTE) : 0;
+            int toSecond = minute == lastMinute ? (int) Math.floorMod(endSecond, SECONDS_PER_MINUTE) : 59;
+            long secondsMask = (-1L >>> (63 - toSecond)) & (-1L << fromSecond);
+            for (Map.Entry<CellKey, Cell> entry : bucket.cells.entrySet()) {
+                CellKey key = entry.getKey();
+                if (uriFilter != null && !uriFilter.contains(key.uriId())) {
+                    continue;
+                }
+                Cell cell = entry.getValue();
+                if (unique) {
+                    if (cell.overflow) {
+                        overflowFallbacks.increment();
+                        return Optional.empty();
+                    }
+                    Set<IpKey> ips = distinctIps.computeIfAbsent(key, k -> new HashSet<>());
+                    cell.ips.forEach((ip, seconds) -> {
+                        if ((seconds & secondsMask) != 0) {
+                            ips.add(ip);
+                        }
+                    });
+                } else {
+                    long hits = 0;
+                    for (int second = fromSecond; second <= toSecond; second++) {
+                        hits += cell.seconds.get(second);
+                    }
+                    totals.merge(key, hits, Long::sum);
+                }
+            }
+        }
+        if (unique) {
+            distinctIps.forEach((key, ips) -> totals.put(key, (long) ips.size()));
+        }
+
+        List<ViewStats> result = new ArrayList<>(totals.size());
+        totals.forEach((key, hits) -> {
+            if (hits > 0) {
+                result.add(ViewStats.builder()
+                        .app(hitDictionaryRepository.getApp(key.appId()))
+                        .uri(hitDictionaryRepository.getUri(key.uriId()))
+                        .hits(hits)
+                        .build());
+            }
+        });
+        result.sort(Comparator.comparing(ViewStats::getHits).reversed());
+        return Optional.of(result);
+    }
+
+    private void record(List<EndpointHit> hits) {
+        long now = currentMinute();
+        for (EndpointHit hit : hits) {
+            long second = hit.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+            long minute = Math.floorDiv(second, SECONDS_PER_MINUTE);
+            if (minute <= now - windowMinutes) {
+                continue;
+            }
+            MinuteBucket bucket = minute <= now + 1 ? bucketFor(minute) : null;
+            if (bucket == null) {
+                // Хит не попал в кольцо: минуты до него включительно больше не считаются полностью учтёнными
+                lostMinute.accumulateAndGet(minute, Math::max);
+                continue;
+            }
+            Cell cell = bucket.cells.computeIfAbsent(new CellKey(hit.getAppId(), hit.getUriId()), k -> new Cell());
+            if (cell.add((int) Math.floorMod(second, SECONDS_PER_MINUTE), IpKey.of(hit.getIpBinary()),
+                    maxDistinctPerBucket)) {
+                overflowedCells.increment();
+            }
+        }
+    }
+
+    private MinuteBucket bucketFor(long minute) {
+        int slot = slot(minute);
+        while (true) {
+            MinuteBucket current = ring.get(slot);
+            if (current != null && current.minute == minute) {
+                return current;
+            }
+            if (current != null && current.minute > minute) {
+                return null;
+            }
+            MinuteBucket fresh = new MinuteBucket(minute);
+            if (ring.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, ring.length());
+    }
+
+    private static long currentMinute() {
+        return Math.floorDiv(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC), SECONDS_PER_MINUTE);
+    }
+
+    /**
+     * Закодированный IP: 16 байт адреса или 8 байт хэша при анонимизации, длина отличает одно от другого.
+     */
+    private record IpKey(long high, long low, int length) {
+
+        static IpKey of(byte[] ip) {
+            ByteBuffer buffer = ByteBuffer.wrap(ip);
+            long high = buffer.remaining() >= 2 * Long.BYTES ? buffer.getLong() : 0;
+            long low = 0;
+            while (buffer.hasRemaining()) {
+                low = (low << Byte.SIZE) | (buffer.get() & 0xff);
+            }
+            return new IpKey(high, low, ip.length);
+        }
+    }
+
+    private record CellKey(int appId, long uriId) {
+    }
+
+    private static final class MinuteBucket {
+        private final long minute;
+        private final Map<CellKey, Cell> cells = new ConcurrentHashMap<>();
+
+        private MinuteBucket(long minute) {
+            this.minute = minute;
+        }
+    }
+
+    private static final class Cell {
+        private final AtomicLongArray seconds = new AtomicLongArray(SECONDS_PER_MINUTE);
+        private final Map<IpKey, Long> ips = new ConcurrentHashMap<>();
+        private volatile boolean overflow;
+
+        /**
+         * true, если именно этот хит переполнил множество IP ячейки.
+         */
+        private boolean add(int second, IpKey ip, int maxDistinct) {
+            seconds.incrementAndGet(second);
+            if (overflow) {
+                return false;
+            }
+            ips.merge(ip, 1L << second, (a, b) -> a | b);
+            if (ips.size() > maxDistinct) {
+                synchronized (this) {
+                    if (!overflow) {
+                        overflow = true;
+                        ips.clear();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package ru.practicum.stat.model;
 
-import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -10,19 +9,15 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Entity
-@Table(name = "endpoint")
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class EndpointHit {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
-    @Column(nullable = false)
     String app;
-    @Column(nullable = false)
     String uri;
-    @Column(nullable = false)
     String ip;
-    @Column(name = "created", nullable = false)
     LocalDateTime timestamp;
-}
\ No newline at end of file
+    Integer appId;
+    Long uriId;
+    @ToString.Exclude
+    byte[] ipBinary;
+}
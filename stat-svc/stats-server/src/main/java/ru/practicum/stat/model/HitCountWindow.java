@@ -0,0 +1,9 @@
+package ru.practicum.stat.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Окно одного элемента пакетного запроса статистики; index — позиция элемента в запросе.
+ */
+public record HitCountWindow(int index, long uriId, LocalDateTime start, LocalDateTime end, boolean unique) {
+}
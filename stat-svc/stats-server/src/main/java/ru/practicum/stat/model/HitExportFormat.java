@@ -0,0 +1,27 @@
+package ru.practicum.stat.model;
+
+import org.springframework.http.MediaType;
+
+public enum HitExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    private final MediaType mediaType;
+
+    HitExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static HitExportFormat from(String value) {
+        for (HitExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный формат выгрузки: " + value);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.stat.model;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class HitExportRequest {
+    LocalDateTime start;
+    LocalDateTime end;
+    String app;
+    String uri;
+    long afterId;
+    HitExportFormat format;
+}
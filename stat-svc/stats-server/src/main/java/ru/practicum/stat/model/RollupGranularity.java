@@ -0,0 +1,41 @@
+package ru.practicum.stat.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    MINUTE("endpoint_stats_minute", null, ChronoUnit.MINUTES),
+    HOUR("endpoint_stats_hour", "endpoint_sketch_hour", ChronoUnit.HOURS),
+    DAY("endpoint_stats_day", "endpoint_sketch_day", ChronoUnit.DAYS);
+
+    private final String table;
+    private final String sketchTable;
+    private final ChronoUnit unit;
+
+    RollupGranularity(String table, String sketchTable, ChronoUnit unit) {
+        this.table = table;
+        this.sketchTable = sketchTable;
+        this.unit = unit;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getSketchTable() {
+        return sketchTable;
+    }
+
+    public boolean hasSketches() {
+        return sketchTable != null;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.stat.model;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+public record RollupKey(long uriId, LocalDateTime bucket, int appId) implements Comparable<RollupKey> {
+
+    private static final Comparator<RollupKey> ORDER = Comparator.comparingLong(RollupKey::uriId)
+            .thenComparing(RollupKey::bucket)
+            .thenComparingInt(RollupKey::appId);
+
+    @Override
+    public int compareTo(RollupKey other) {
+        return ORDER.compare(this, other);
+    }
+}
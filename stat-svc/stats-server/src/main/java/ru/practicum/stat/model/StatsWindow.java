@@ -0,0 +1,117 @@
+package ru.practicum.stat.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбиение окна [start, end] на целые бакеты роллапов и неполные края,
+ * которые считаются по сырым строкам endpoint.
+ */
+public final class StatsWindow {
+
+    private final RollupGranularity[] levels;
+    private final List<Range> ranges = new ArrayList<>();
+
+    private StatsWindow(RollupGranularity finest) {
+        RollupGranularity[] all = RollupGranularity.values();
+        this.levels = Arrays.copyOfRange(all, finest.ordinal(), all.length);
+    }
+
+    public static StatsWindow of(LocalDateTime start, LocalDateTime end) {
+        return of(start, end, RollupGranularity.MINUTE);
+    }
+
+    /**
+     * Разбиение, в котором самые мелкие бакеты имеют гранулярность finest; всё, что мельче, читается из сырых строк.
+     */
+    public static StatsWindow of(LocalDateTime start, LocalDateTime end, RollupGranularity finest) {
+        return of(start, end, finest, Map.of());
+    }
+
+    /**
+     * То же разбиение с учётом сроков хранения: бакеты гранулярности раньше keptFrom уже удалены,
+     * поэтому эта часть окна читается из сырых строк.
+     */
+    public static StatsWindow of(LocalDateTime start, LocalDateTime end, RollupGranularity finest,
+                                 Map<RollupGranularity, LocalDateTime> keptFrom) {
+        StatsWindow window = new StatsWindow(finest);
+        window.split(start, end, finest);
+        if (!keptFrom.isEmpty()) {
+            window.retain(keptFrom);
+        }
+        return window;
+    }
+
+    public List<Range> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    private void split(LocalDateTime start, LocalDateTime end, RollupGranularity finest) {
+        LocalDateTime from = finest.ceil(start);
+        LocalDateTime to = finest.floor(end);
+        if (!from.isBefore(to)) {
+            ranges.add(new Range(null, start, end, true));
+            return;
+        }
+        if (start.isBefore(from)) {
+            ranges.add(new Range(null, start, from, false));
+        }
+        cover(0, from, to);
+        ranges.add(new Range(null, to, end, true));
+    }
+
+    private void retain(Map<RollupGranularity, LocalDateTime> keptFrom) {
+        List<Range> retained = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            LocalDateTime cutoff = range.isRaw() ? null : keptFrom.get(range.granularity());
+            if (cutoff == null || !range.from().isBefore(cutoff)) {
+                retained.add(range);
+                continue;
+            }
+            LocalDateTime kept = range.granularity().ceil(cutoff);
+            if (!kept.isBefore(range.to())) {
+                retained.add(new Range(null, range.from(), range.to(), range.toInclusive()));
+            } else {
+                retained.add(new Range(null, range.from(), kept, false));
+                retained.add(new Range(range.granularity(), kept, range.to(), range.toInclusive()));
+            }
+        }
+        ranges.clear();
+        ranges.addAll(retained);
+    }
+
+    private void cover(int level, LocalDateTime from, LocalDateTime to) {
+        if (level + 1 < levels.length) {
+            RollupGranularity coarser = levels[level + 1];
+            LocalDateTime innerFrom = coarser.ceil(from);
+            LocalDateTime innerTo = coarser.floor(to);
+            if (innerFrom.isBefore(innerTo)) {
+                addBuckets(levels[level], from, innerFrom);
+                cover(level + 1, innerFrom, innerTo);
+                addBuckets(levels[level], innerTo, to);
+                return;
+            }
+        }
+        addBuckets(levels[level], from, to);
+    }
+
+    private void addBuckets(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            ranges.add(new Range(granularity, from, to, false));
+        }
+    }
+
+    /**
+     * Диапазон [from, to) или [from, to]; granularity == null означает сырые строки.
+     */
+    public record Range(RollupGranularity granularity, LocalDateTime from, LocalDateTime to, boolean toInclusive) {
+
+        public boolean isRaw() {
+            return granularity == null;
+        }
+    }
+}
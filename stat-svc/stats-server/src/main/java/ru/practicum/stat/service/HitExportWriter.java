@@ -0,0 +1,60 @@
+package ru.practicum.stat.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.practicum.stat.EndpointHitDto;
+import ru.practicum.stat.model.HitExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+class HitExportWriter {
+
+    private static final String CSV_HEADER = "id,app,uri,ip,timestamp\n";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+    private final HitExportFormat format;
+    private final ObjectMapper objectMapper;
+
+    HitExportWriter(OutputStream out, HitExportFormat format, ObjectMapper objectMapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == HitExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+    }
+
+    void write(EndpointHitDto hit) throws IOException {
+        if (format == HitExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(hit));
+        } else {
+            writer.write(String.valueOf(hit.getId()));
+            writer.write(',');
+            writer.write(csv(hit.getApp()));
+            writer.write(',');
+            writer.write(csv(hit.getUri()));
+            writer.write(',');
+            writer.write(csv(hit.getIp()));
+            writer.write(',');
+            writer.write(TIMESTAMP_FORMAT.format(hit.getTimestamp()));
+        }
+        writer.write('\n');
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
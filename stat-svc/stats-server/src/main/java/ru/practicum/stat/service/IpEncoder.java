@@ -0,0 +1,85 @@
+package ru.practicum.stat.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Компактное представление IP: 16 байт (IPv4 хранится как IPv4-mapped IPv6).
+ * При включённой анонимизации, а также для нераспознанных строк хранится 64-битный хэш SHA-256.
+ */
+@Component
+public class IpEncoder {
+
+    private static final String OCTET = "(25[0-5]|2[0-4][0-9]|1[0-9][0-9]|[1-9]?[0-9])";
+    private static final Pattern IPV4 = Pattern.compile("^" + OCTET + "(\\." + OCTET + "){3}$");
+    private static final Pattern IPV6 = Pattern.compile("^[0-9a-fA-F:.]*:[0-9a-fA-F:.]*$");
+    private static final byte[] IPV4_MAPPED_PREFIX = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xff, (byte) 0xff};
+
+    private final boolean anonymize;
+    private final byte[] salt;
+
+    public IpEncoder(@Value("${stats.ip.anonymize:false}") boolean anonymize,
+                     @Value("${stats.ip.hash-salt:}") String salt) {
+        this.anonymize = anonymize;
+        this.salt = salt.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public byte[] encode(String ip) {
+        if (anonymize) {
+            return hash(salt, ip);
+        }
+        if (IPV4.matcher(ip).matches()) {
+            ByteBuffer buffer = ByteBuffer.allocate(16).put(IPV4_MAPPED_PREFIX);
+            for (String octet : ip.split("\\.")) {
+                buffer.put((byte) Integer.parseInt(octet));
+            }
+            return buffer.array();
+        }
+        if (IPV6.matcher(ip).matches()) {
+            try {
+                byte[] address = InetAddress.getByName(ip).getAddress();
+                if (address.length == 4) {
+                    return encode(InetAddress.getByAddress(address).getHostAddress());
+                }
+                return address;
+            } catch (UnknownHostException e) {
+                return hash(new byte[0], ip);
+            }
+        }
+        return hash(new byte[0], ip);
+    }
+
+    /**
+     * Обратное преобразование для выгрузки: адрес в текстовом виде, хэш — как hash:&lt;hex&gt;.
+     */
+    public String decode(byte[] ip) {
+        if (ip.length == 16) {
+            try {
+                return InetAddress.getByAddress(ip).getHostAddress();
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return "hash:" + HexFormat.of().formatHex(ip);
+    }
+
+    private static byte[] hash(byte[] salt, String ip) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return Arrays.copyOf(digest.digest(ip.getBytes(StandardCharsets.UTF_8)), Long.BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.stat.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stat.SqlDialect;
+import ru.practicum.stat.model.RollupGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Обслуживание помесячных партиций таблицы endpoint: создание партиций наперёд
+ * и удаление целых партиций старше срока хранения. На H2 таблица не партиционирована,
+ * поэтому устаревшие хиты удаляются обычным DELETE. Там же удаляются бакеты роллапов и скетчей
+ * старше stats.rollups.retention.*; удаление идёт по одному дню бакетов, чтобы не держать долгих транзакций.
+ */
+@Slf4j
+@Component
+public class PartitionMaintenanceService {
+
+    private static final String PARTITION_PREFIX = "endpoint_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+    private final int premakeMonths;
+    private final int retentionMonths;
+    private final RollupRetention rollupRetention;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       SqlDialect sqlDialect,
+                                       RollupRetention rollupRetention,
+                                       @Value("${stats.partitions.premake-months:2}") int premakeMonths,
+                                       @Value("${stats.partitions.retention-months:12}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+        this.rollupRetention = rollupRetention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stats.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        if (sqlDialect.isPostgres()) {
+            createPartitions(current);
+        }
+        if (retentionMonths > 0) {
+            dropExpired(current.minusMonths(retentionMonths));
+        }
+        rollupRetention.keptFrom().forEach(this::deleteExpiredBuckets);
+    }
+
+    private void createPartitions(YearMonth current) {
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute(String.format(
+                        "CREATE TABLE %s PARTITION OF endpoint FOR VALUES FROM ('%s') TO ('%s')",
+                        name, month.atDay(1), month.plusMonths(1).atDay(1)));
+                log.info("Создана партиция {}", name);
+            } catch (DataAccessException e) {
+                log.error("Не удалось создать партицию {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private void dropExpired(YearMonth oldestKept) {
+        if (!sqlDialect.isPostgres()) {
+            int deleted = jdbcTemplate.update("DELETE FROM endpoint WHERE created < ?",
+                    Timestamp.valueOf(oldestKept.atDay(1).atStartOfDay()));
+            log.info("Удалено устаревших хитов: {}", deleted);
+            return;
+        }
+        List<String> partitions = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'endpoint'", String.class);
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month == null || !month.isBefore(oldestKept)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE endpoint DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Партиция {} старше срока хранения ({} мес.) отсоединена и удалена", partition, retentionMonths);
+        }
+    }
+
+    private void deleteExpiredBuckets(RollupGranularity granularity, LocalDateTime keptFrom) {
+        deleteBefore(granularity.getTable(), keptFrom);
+        if (granularity.hasSketches()) {
+            deleteBefore(granularity.getSketchTable(), keptFrom);
+        }
+    }
+
+    private void deleteBefore(String table, LocalDateTime keptFrom) {
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(bucket) FROM " + table, Timestamp.class);
+        if (oldest == null || !oldest.toLocalDateTime().isBefore(keptFrom)) {
+            return;
+        }
+        int deleted = 0;
+        LocalDateTime from = oldest.toLocalDateTime().truncatedTo(ChronoUnit.DAYS);
+        while (from.isBefore(keptFrom)) {
+            LocalDateTime to = from.plusDays(1).isBefore(keptFrom) ? from.plusDays(1) : keptFrom;
+            deleted += jdbcTemplate.update("DELETE FROM " + table + " WHERE bucket >= ? AND bucket < ?",
+                    Timestamp.valueOf(from), Timestamp.valueOf(to));
+            from = to;
+        }
+        log.info("Из {} удалено бакетов старше {}: {}", table, keptFrom, deleted);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    private static YearMonth monthOf(String partition) {
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.stat.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stat.model.RollupGranularity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Сроки хранения бакетов роллапов и скетчей по гранулярностям; нулевой срок означает хранить всегда.
+ * Запросы статистики берут бакеты только не старше срока, а более ранние части окна считают по сырым хитам,
+ * поэтому удаление роллапов не меняет ответов, пока сырые хиты ещё хранятся.
+ */
+@Component
+public class RollupRetention {
+
+    private final Map<RollupGranularity, Duration> retention = new EnumMap<>(RollupGranularity.class);
+
+    public RollupRetention(@Value("${stats.rollups.retention.minute:P7D}") Duration minute,
+                           @Value("${stats.rollups.retention.hour:P90D}") Duration hour,
+                           @Value("${stats.rollups.retention.day:P0D}") Duration day) {
+        retention.put(RollupGranularity.MINUTE, minute);
+        retention.put(RollupGranularity.HOUR, hour);
+        retention.put(RollupGranularity.DAY, day);
+    }
+
+    public Duration get(RollupGranularity granularity) {
+        return retention.get(granularity);
+    }
+
+    /**
+     * Самый ранний хранимый бакет каждой гранулярности на текущий момент; гранулярностей без срока в ответе нет.
+     */
+    public Map<RollupGranularity, LocalDateTime> keptFrom() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<RollupGranularity, LocalDateTime> keptFrom = new EnumMap<>(RollupGranularity.class);
+        retention.forEach((granularity, duration) -> {
+            if (!duration.isZero() && !duration.isNegative()) {
+                keptFrom.put(granularity, granularity.floor(now.minus(duration)));
+            }
+        });
+        return keptFrom;
+    }
+}
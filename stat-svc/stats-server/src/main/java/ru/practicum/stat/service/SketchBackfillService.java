@@ -0,0 +1,128 @@
+package ru.practicum.stat.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stat.EndpointSketchRepository;
+import ru.practicum.stat.model.RollupGranularity;
+import ru.practicum.stat.model.RollupKey;
+import ru.practicum.stat.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Однократно строит HLL-скетчи по хитам, сохранённым до их появления.
+ * Добавление в скетч идемпотентно, поэтому пересечение с текущей загрузкой хитов безопасно.
+ * Построение идёт в отдельном потоке, чтобы не задерживать запуск. Хиты каждого дня читаются курсором порциями
+ * по fetch-size и сразу добавляются в скетчи; накопив max-pending-keys ключей, скетчи сливаются в базу,
+ * поэтому память не зависит от числа хитов за день.
+ */
+@Slf4j
+@Component
+public class SketchBackfillService {
+
+    private static final String TASK = "sketch-backfill";
+    private static final String DAY_HITS_SQL = "SELECT app_id, uri_id, ip, created FROM endpoint " +
+            "WHERE created >= ? AND created < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EndpointSketchRepository endpointSketchRepository;
+    private final int maxPendingKeys;
+
+    public SketchBackfillService(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 EndpointSketchRepository endpointSketchRepository,
+                                 @Value("${stats.export.fetch-size:1000}") int fetchSize,
+                                 @Value("${stats.sketch.max-pending-keys:5000}") int maxPendingKeys) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = transactionTemplate;
+        this.endpointSketchRepository = endpointSketchRepository;
+        this.maxPendingKeys = maxPendingKeys;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofPlatform().name("sketch-backfill").daemon().start(this::backfill);
+    }
+
+    public void backfill() {
+        List<Timestamp> pending = jdbcTemplate.queryForList(
+                "SELECT completed_at FROM stats_maintenance WHERE task = ?", Timestamp.class, TASK);
+        if (pending.isEmpty() || pending.getFirst() != null) {
+            return;
+        }
+        try {
+            Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(created) FROM endpoint", Timestamp.class);
+            Timestamp last = jdbcTemplate.queryForObject("SELECT MAX(created) FROM endpoint", Timestamp.class);
+            if (first != null && last != null) {
+                log.info("Построение HLL-скетчей по хитам с {} по {}", first, last);
+                LocalDateTime day = first.toLocalDateTime().truncatedTo(ChronoUnit.DAYS);
+                while (!day.isAfter(last.toLocalDateTime())) {
+                    LocalDateTime from = day;
+                    transactionTemplate.executeWithoutResult(status -> backfillDay(from));
+                    day = day.plusDays(1);
+                }
+            }
+            jdbcTemplate.update("UPDATE stats_maintenance SET completed_at = ? WHERE task = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), TASK);
+            log.info("Построение HLL-скетчей завершено");
+        } catch (Exception e) {
+            log.error("Построение HLL-скетчей прервано, оно продолжится при следующем запуске", e);
+        }
+    }
+
+    /**
+     * Курсор Postgres работает только внутри транзакции, поэтому день обрабатывается одной транзакцией.
+     */
+    private void backfillDay(LocalDateTime day) {
+        Map<RollupGranularity, Map<RollupKey, HyperLogLog>> sketches = new EnumMap<>(RollupGranularity.class);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            if (granularity.hasSketches()) {
+                sketches.put(granularity, new HashMap<>());
+            }
+        }
+        int[] keys = {0};
+        cursorTemplate.query(DAY_HITS_SQL, rs -> {
+            int appId = rs.getInt("app_id");
+            long uriId = rs.getLong("uri_id");
+            byte[] ip = rs.getBytes("ip");
+            LocalDateTime created = rs.getTimestamp("created").toLocalDateTime();
+            for (Map.Entry<RollupGranularity, Map<RollupKey, HyperLogLog>> entry : sketches.entrySet()) {
+                RollupKey key = new RollupKey(uriId, entry.getKey().floor(created), appId);
+                HyperLogLog sketch = entry.getValue().get(key);
+                if (sketch == null) {
+                    sketch = new HyperLogLog();
+                    entry.getValue().put(key, sketch);
+                    keys[0]++;
+                }
+                sketch.add(ip);
+            }
+            if (keys[0] >= maxPendingKeys) {
+                merge(sketches);
+                keys[0] = 0;
+            }
+        }, Timestamp.valueOf(day), Timestamp.valueOf(day.plusDays(1)));
+        merge(sketches);
+    }
+
+    private void merge(Map<RollupGranularity, Map<RollupKey, HyperLogLog>> sketches) {
+        sketches.forEach((granularity, byKey) -> {
+            endpointSketchRepository.merge(granularity, byKey);
+            byKey.clear();
+        });
+    }
+}
@@ -2,13 +2,26 @@ package ru.practicum.stat.service;
 
 import ru.practicum.stat.EndpointHitCreateDto;
 import ru.practicum.stat.EndpointHitDto;
+import ru.practicum.stat.StatsBatchItemDto;
+import ru.practicum.stat.StatsBatchResultDto;
 import ru.practicum.stat.StatsRequestDto;
 import ru.practicum.stat.ViewStatsDto;
+import ru.practicum.stat.model.HitExportRequest;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface StatisticsService {
     EndpointHitDto create(EndpointHitCreateDto endpoint);
 
+    int createAll(List<EndpointHitCreateDto> endpoints);
+
+    int createAll(List<EndpointHitCreateDto> endpoints, String source);
+
     List<ViewStatsDto> getStats(StatsRequestDto statsRequestDto);
+
+    List<StatsBatchResultDto> getStatsBatch(List<StatsBatchItemDto> items);
+
+    long exportHits(HitExportRequest request, OutputStream out) throws IOException;
 }
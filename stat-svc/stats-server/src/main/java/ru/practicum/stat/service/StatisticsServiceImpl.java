@@ -1,19 +1,35 @@
 package ru.practicum.stat.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import ru.practicum.stat.*;
+import ru.practicum.stat.hot.HotWindowEngine;
 import ru.practicum.stat.mapper.EndpointHitMapper;
 import ru.practicum.stat.mapper.ViewStatsMapper;
 import ru.practicum.stat.model.EndpointHit;
+import ru.practicum.stat.model.HitCountWindow;
+import ru.practicum.stat.model.HitExportRequest;
+import ru.practicum.stat.model.RollupGranularity;
+import ru.practicum.stat.model.StatsWindow;
 import ru.practicum.stat.model.ViewStats;
+import ru.practicum.stat.sketch.SketchAccumulator;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,15 +39,90 @@ import java.util.stream.Collectors;
 public class StatisticsServiceImpl implements StatisticsService {
 
     private final EndpointHitRepository endpointHitRepository;
+    private final HitDictionaryRepository hitDictionaryRepository;
+    private final IpEncoder ipEncoder;
+    private final HotWindowEngine hotWindowEngine;
+    private final ObjectMapper objectMapper;
+    private final EndpointHitBatchRepository endpointHitBatchRepository;
+    private final HitSourceRepository hitSourceRepository;
+    private final EndpointStatsRollupRepository endpointStatsRollupRepository;
+    private final EndpointSketchRepository endpointSketchRepository;
+    private final SketchAccumulator sketchAccumulator;
+    private final RollupRetention rollupRetention;
+
+    @Value("${stats.batch.max-items:500}")
+    private int batchMaxItems;
 
     @Override
     public EndpointHitDto create(EndpointHitCreateDto endpointHitCreateDto) {
         log.info("Создание EndpointHit с данными: {}", endpointHitCreateDto);
-        EndpointHit hit = EndpointHitMapper.toEndpointHitFromCreateDto(endpointHitCreateDto);
-        EndpointHit createdHit = endpointHitRepository.save(hit);
+        EndpointHit hit = encode(EndpointHitMapper.toEndpointHitFromCreateDto(endpointHitCreateDto));
+        EndpointHit createdHit = endpointHitBatchRepository.save(hit);
+        endpointStatsRollupRepository.increment(List.of(createdHit));
+        sketchAccumulator.addAfterCommit(List.of(createdHit));
+        hotWindowEngine.recordAfterCommit(List.of(createdHit));
         return EndpointHitMapper.toEndpointHitDto(createdHit);
     }
 
+    @Override
+    public int createAll(List<EndpointHitCreateDto> endpointHitCreateDtos) {
+        return createAll(endpointHitCreateDtos, null);
+    }
+
+    @Override
+    public int createAll(List<EndpointHitCreateDto> endpointHitCreateDtos, String source) {
+        log.info("Пакетное создание EndpointHit, количество: {}, источник: {}", endpointHitCreateDtos.size(), source);
+        List<EndpointHitCreateDto> accepted = endpointHitCreateDtos;
+        if (source != null) {
+            accepted = skipDelivered(source, endpointHitCreateDtos);
+        }
+        Map<String, Integer> appIds = hitDictionaryRepository.getAppIds(
+                accepted.stream().map(EndpointHitCreateDto::getApp).collect(Collectors.toSet()));
+        Map<String, Long> uriIds = hitDictionaryRepository.getUriIds(
+                accepted.stream().map(EndpointHitCreateDto::getUri).collect(Collectors.toSet()));
+        List<EndpointHit> hits = accepted.stream()
+                .map(EndpointHitMapper::toEndpointHitFromCreateDto)
+                .map(hit -> encode(hit, appIds.get(hit.getApp()), uriIds.get(hit.getUri())))
+                .collect(Collectors.toList());
+        int saved = endpointHitBatchRepository.saveAll(hits);
+        endpointStatsRollupRepository.increment(hits);
+        sketchAccumulator.addAfterCommit(hits);
+        hotWindowEngine.recordAfterCommit(hits);
+        return saved;
+    }
+
+    private EndpointHit encode(EndpointHit hit) {
+        return encode(hit, hitDictionaryRepository.getAppId(hit.getApp()), hitDictionaryRepository.getUriId(hit.getUri()));
+    }
+
+    private EndpointHit encode(EndpointHit hit, int appId, long uriId) {
+        hit.setAppId(appId);
+        hit.setUriId(uriId);
+        hit.setIpBinary(ipEncoder.encode(hit.getIp()));
+        return hit;
+    }
+
+    private List<EndpointHitCreateDto> skipDelivered(String source, List<EndpointHitCreateDto> endpointHitCreateDtos) {
+        long lastSeq = hitSourceRepository.lockLastSeq(source);
+        List<EndpointHitCreateDto> accepted = new ArrayList<>(endpointHitCreateDtos.size());
+        long maxSeq = lastSeq;
+        for (EndpointHitCreateDto dto : endpointHitCreateDtos) {
+            if (dto.getSeq() == null) {
+                throw new IllegalArgumentException("Хит от источника " + source + " передан без номера последовательности");
+            }
+            if (dto.getSeq() > lastSeq) {
+                accepted.add(dto);
+                maxSeq = Math.max(maxSeq, dto.getSeq());
+            }
+        }
+        if (maxSeq > lastSeq) {
+            hitSourceRepository.updateLastSeq(source, maxSeq);
+        }
+        log.info("Источник {}: принято {} хитов, пропущено повторов {}", source, accepted.size(),
+                endpointHitCreateDtos.size() - accepted.size());
+        return accepted;
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<ViewStatsDto> getStats(StatsRequestDto request) {
@@ -42,24 +133,35 @@ public class StatisticsServiceImpl implements StatisticsService {
         Boolean unique = request.getUnique();
         List<String> uris = request.getUris();
 
-        if (start != null && end != null && start.isAfter(end)) {
+        if (start == null || end == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start and end dates must be set");
+        }
+        if (start.isAfter(end)) {
             log.warn("Некорректный запрос: start={} позже end={}", start, end);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start date must be before end date");
         }
 
-        List<ViewStats> viewStats;
-        if (unique) {
-            if (uris != null && !uris.isEmpty()) {
-                viewStats = endpointHitRepository.findStatsUniqueIp(start, end, uris);
-            } else {
-                viewStats = endpointHitRepository.findStatsUniqueIpAllUris(start, end);
+        List<Long> uriIds = null;
+        if (uris != null && !uris.isEmpty()) {
+            uriIds = hitDictionaryRepository.findUriIds(uris);
+            if (uriIds.isEmpty()) {
+                return List.of();
             }
+        }
+
+        Optional<List<ViewStats>> hot = hotWindowEngine.query(start, end, uriIds, unique);
+        List<ViewStats> viewStats;
+        if (hot.isPresent()) {
+            viewStats = hot.get();
+            log.info("Статистика получена из горячего окна");
+        } else if (unique && request.getPrecision() == StatsPrecision.APPROXIMATE) {
+            viewStats = endpointSketchRepository.findUniqueStats(
+                    StatsWindow.of(start, end, RollupGranularity.HOUR, rollupRetention.keptFrom()), uriIds);
+        } else if (unique) {
+            viewStats = endpointHitRepository.findStatsUniqueIp(start, end, uriIds);
         } else {
-            if (uris != null && !uris.isEmpty()) {
-                viewStats = endpointHitRepository.findStats(start, end, uris);
-            } else {
-                viewStats = endpointHitRepository.findStatsAllUris(start, end);
-            }
+            viewStats = endpointStatsRollupRepository.findStats(
+                    StatsWindow.of(start, end, RollupGranularity.MINUTE, rollupRetention.keptFrom()), uriIds);
         }
         log.info("Получена статистика: {}", viewStats);
 
@@ -67,4 +169,119 @@ public class StatisticsServiceImpl implements StatisticsService {
                 .map(ViewStatsMapper::toViewStatsDto)
                 .collect(Collectors.toList()) : List.of();
     }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<StatsBatchResultDto> getStatsBatch(List<StatsBatchItemDto> items) {
+        log.info("Пакетное получение статистики, окон: {}", items.size());
+        if (items.size() > batchMaxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch must contain at most " + batchMaxItems + " items");
+        }
+        for (StatsBatchItemDto item : items) {
+            if (item.getUri() == null || item.getStart() == null || item.getEnd() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Uri, start and end must be set");
+            }
+            if (item.getStart().isAfter(item.getEnd())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Start date must be before end date");
+            }
+        }
+
+        Map<String, Long> uriIds = hitDictionaryRepository.findUriIdsByUri(
+                new HashSet<>(items.stream().map(StatsBatchItemDto::getUri).toList()));
+        // Каждое окно разрешается так же, как в getStats: горячее окно, скетчи, роллапы; оставшиеся окна
+        // считаются общими запросами по роллапам и по сырым строкам для точных уникальных IP
+        Map<RollupGranularity, LocalDateTime> keptFrom = rollupRetention.keptFrom();
+        Map<Integer, Long> hits = new HashMap<>();
+        List<HitCountWindow> totalWindows = new ArrayList<>();
+        List<HitCountWindow> uniqueWindows = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            StatsBatchItemDto item = items.get(i);
+            Long uriId = uriIds.get(item.getUri());
+            if (uriId == null) {
+                continue;
+            }
+            boolean unique = Boolean.TRUE.equals(item.getUnique());
+            Optional<List<ViewStats>> hot = hotWindowEngine.query(item.getStart(), item.getEnd(), List.of(uriId), unique);
+            if (hot.isPresent()) {
+                hits.put(i, sumHits(hot.get()));
+            } else if (unique && item.getPrecision() == StatsPrecision.APPROXIMATE) {
+                hits.put(i, sumHits(endpointSketchRepository.findUniqueStats(
+                        StatsWindow.of(item.getStart(), item.getEnd(), RollupGranularity.HOUR, keptFrom),
+                        List.of(uriId))));
+            } else {
+                HitCountWindow window = new HitCountWindow(i, uriId, item.getStart(), item.getEnd(), unique);
+                (unique ? uniqueWindows : totalWindows).add(window);
+            }
+        }
+        if (!totalWindows.isEmpty()) {
+            hits.putAll(endpointStatsRollupRepository.countHits(totalWindows, keptFrom));
+        }
+        if (!uniqueWindows.isEmpty()) {
+            hits.putAll(endpointHitRepository.countUniqueHits(uniqueWindows));
+        }
+
+        List<StatsBatchResultDto> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            StatsBatchItemDto item = items.get(i);
+            results.add(StatsBatchResultDto.builder()
+                    .uri(item.getUri())
+                    .start(item.getStart())
+                    .end(item.getEnd())
+                    .unique(Boolean.TRUE.equals(item.getUnique()))
+                    .hits(hits.getOrDefault(i, 0L))
+                    .build());
+        }
+        return results;
+    }
+
+    private static long sumHits(List<ViewStats> viewStats) {
+        return viewStats.stream().mapToLong(ViewStats::getHits).sum();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public long exportHits(HitExportRequest request, OutputStream out) throws IOException {
+        log.info("Выгрузка сырых хитов: {}", request);
+        HitExportWriter writer = new HitExportWriter(out, request.getFormat(), objectMapper);
+
+        Integer appId = null;
+        if (request.getApp() != null) {
+            Optional<Integer> found = hitDictionaryRepository.findAppId(request.getApp());
+            if (found.isEmpty()) {
+                writer.flush();
+                return 0;
+            }
+            appId = found.get();
+        }
+        List<Long> uriIds = null;
+        if (request.getUri() != null) {
+            uriIds = hitDictionaryRepository.findUriIds(List.of(request.getUri()));
+            if (uriIds.isEmpty()) {
+                writer.flush();
+                return 0;
+            }
+        }
+
+        long[] exported = {0};
+        endpointHitRepository.streamHits(request.getStart(), request.getEnd(), appId, uriIds, request.getAfterId(),
+                rs -> {
+                    EndpointHitDto hit = EndpointHitDto.builder()
+                            .id(rs.getLong("id"))
+                            .app(hitDictionaryRepository.getApp(rs.getInt("app_id")))
+                            .uri(hitDictionaryRepository.getUri(rs.getLong("uri_id")))
+                            .ip(ipEncoder.decode(rs.getBytes("ip")))
+                            .timestamp(rs.getTimestamp("created").toLocalDateTime())
+                            .build();
+                    try {
+                        writer.write(hit);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    exported[0]++;
+                });
+        writer.flush();
+        log.info("Выгрузка завершена, хитов: {}", exported[0]);
+        return exported[0];
+    }
 }
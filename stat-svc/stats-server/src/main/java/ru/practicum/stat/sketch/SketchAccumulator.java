@@ -0,0 +1,154 @@
+package ru.practicum.stat.sketch;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stat.EndpointSketchRepository;
+import ru.practicum.stat.model.EndpointHit;
+import ru.practicum.stat.model.RollupGranularity;
+import ru.practicum.stat.model.RollupKey;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Копит HLL-скетчи принятых хитов в памяти и раз в flush-interval сливает их в таблицы скетчей одной транзакцией
+ * в собственном потоке, поэтому загрузка хитов не читает и не блокирует строки скетчей. Если ключей накопилось
+ * больше max-pending-keys, сброс запускается раньше. Скетч учитывает хиты после коммита их транзакции.
+ * Пока скетчи не слиты, приближённая статистика их не видит; при штатной остановке накопленное сливается,
+ * при аварийной теряется не больше flush-interval, и оценки уникальных IP за это время занижены.
+ */
+@Slf4j
+@Component
+public class SketchAccumulator {
+
+    private final EndpointSketchRepository endpointSketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPendingKeys;
+
+    private final ScheduledExecutorService flusher;
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean earlyFlush = new AtomicBoolean();
+    private Map<RollupGranularity, Map<RollupKey, HyperLogLog>> pending = newPending();
+
+    public SketchAccumulator(EndpointSketchRepository endpointSketchRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${stats.sketch.flush-interval:PT5S}") Duration flushInterval,
+                             @Value("${stats.sketch.max-pending-keys:5000}") int maxPendingKeys) {
+        this.endpointSketchRepository = endpointSketchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPendingKeys = maxPendingKeys;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("sketch-flush").daemon().factory());
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void addAfterCommit(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(hits);
+                }
+            });
+        } else {
+            add(hits);
+        }
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<RollupGranularity, Map<RollupKey, HyperLogLog>> drained;
+            swapLock.writeLock().lock();
+            try {
+                drained = pending;
+                pending = newPending();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            int keys = drained.values().stream().mapToInt(Map::size).sum();
+            if (keys == 0) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        drained.forEach(endpointSketchRepository::merge));
+                log.debug("Слито HLL-скетчей: {}", keys);
+            } catch (Exception e) {
+                log.warn("Не удалось слить HLL-скетчи, повтор при следующем сбросе: {}", e.getMessage());
+                drained.forEach(this::mergePending);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private void add(List<EndpointHit> hits) {
+        Map<RollupGranularity, Map<RollupKey, HyperLogLog>> sketches = newPending();
+        for (EndpointHit hit : hits) {
+            sketches.forEach((granularity, byKey) -> byKey.computeIfAbsent(
+                    new RollupKey(hit.getUriId(), granularity.floor(hit.getTimestamp()), hit.getAppId()),
+                    key -> new HyperLogLog()).add(hit.getIpBinary()));
+        }
+        int size = sketches.entrySet().stream()
+                .mapToInt(entry -> mergePending(entry.getKey(), entry.getValue()))
+                .sum();
+        if (size > maxPendingKeys && !flusher.isShutdown() && earlyFlush.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                earlyFlush.set(false);
+                flush();
+            });
+        }
+    }
+
+    private int mergePending(RollupGranularity granularity, Map<RollupKey, HyperLogLog> sketches) {
+        swapLock.readLock().lock();
+        try {
+            Map<RollupKey, HyperLogLog> target = pending.get(granularity);
+            sketches.forEach((key, sketch) -> target.merge(key, sketch, (current, added) -> {
+                current.merge(added);
+                return current;
+            }));
+            return target.size();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static Map<RollupGranularity, Map<RollupKey, HyperLogLog>> newPending() {
+        Map<RollupGranularity, Map<RollupKey, HyperLogLog>> sketches = new EnumMap<>(RollupGranularity.class);
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            if (granularity.hasSketches()) {
+                sketches.put(granularity, new ConcurrentHashMap<>());
+            }
+        }
+        return sketches;
+    }
+}
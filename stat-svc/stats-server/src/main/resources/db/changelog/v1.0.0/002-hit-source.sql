@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset pavel:002-hit-source
+CREATE TABLE hit_source (
+    source VARCHAR(128) PRIMARY KEY,
+    last_seq BIGINT NOT NULL
+);
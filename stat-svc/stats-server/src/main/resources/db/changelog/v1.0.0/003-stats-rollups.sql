@@ -0,0 +1,41 @@
+--liquibase formatted sql
+
+--changeset pavel:003-stats-rollups
+CREATE TABLE endpoint_stats_minute (
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app VARCHAR(255) NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+CREATE INDEX idx_endpoint_stats_minute_bucket ON endpoint_stats_minute (bucket);
+
+CREATE TABLE endpoint_stats_hour (
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app VARCHAR(255) NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+CREATE INDEX idx_endpoint_stats_hour_bucket ON endpoint_stats_hour (bucket);
+
+CREATE TABLE endpoint_stats_day (
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app VARCHAR(255) NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+CREATE INDEX idx_endpoint_stats_day_bucket ON endpoint_stats_day (bucket);
+
+CREATE INDEX idx_endpoint_created ON endpoint (created);
+
+--changeset pavel:003-stats-rollups-backfill
+INSERT INTO endpoint_stats_minute (uri, bucket, app, hits)
+SELECT uri, DATE_TRUNC('minute', created), app, COUNT(*) FROM endpoint GROUP BY uri, DATE_TRUNC('minute', created), app;
+
+INSERT INTO endpoint_stats_hour (uri, bucket, app, hits)
+SELECT uri, DATE_TRUNC('hour', created), app, COUNT(*) FROM endpoint GROUP BY uri, DATE_TRUNC('hour', created), app;
+
+INSERT INTO endpoint_stats_day (uri, bucket, app, hits)
+SELECT uri, DATE_TRUNC('day', created), app, COUNT(*) FROM endpoint GROUP BY uri, DATE_TRUNC('day', created), app;
@@ -0,0 +1,46 @@
+--liquibase formatted sql
+
+--changeset pavel:004-hll-sketches dbms:postgresql
+CREATE TABLE endpoint_sketch_hour (
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app VARCHAR(255) NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+CREATE INDEX idx_endpoint_sketch_hour_bucket ON endpoint_sketch_hour (bucket);
+
+CREATE TABLE endpoint_sketch_day (
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app VARCHAR(255) NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+CREATE INDEX idx_endpoint_sketch_day_bucket ON endpoint_sketch_day (bucket);
+
+--changeset pavel:004-hll-sketches-h2 dbms:h2
+CREATE TABLE endpoint_sketch_hour (
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app VARCHAR(255) NOT NULL,
+    registers VARBINARY(4096) NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+CREATE INDEX idx_endpoint_sketch_hour_bucket ON endpoint_sketch_hour (bucket);
+
+CREATE TABLE endpoint_sketch_day (
+    uri VARCHAR(255) NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app VARCHAR(255) NOT NULL,
+    registers VARBINARY(4096) NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+CREATE INDEX idx_endpoint_sketch_day_bucket ON endpoint_sketch_day (bucket);
+
+--changeset pavel:004-stats-maintenance
+CREATE TABLE stats_maintenance (
+    task VARCHAR(64) PRIMARY KEY,
+    completed_at TIMESTAMP WITHOUT TIME ZONE
+);
+INSERT INTO stats_maintenance (task, completed_at) VALUES ('sketch-backfill', NULL);
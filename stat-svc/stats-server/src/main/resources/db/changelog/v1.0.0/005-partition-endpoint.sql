@@ -0,0 +1,47 @@
+--liquibase formatted sql
+
+--changeset pavel:005-partition-endpoint dbms:postgresql
+ALTER TABLE endpoint RENAME TO endpoint_unpartitioned;
+
+CREATE SEQUENCE endpoint_hit_id_seq;
+
+CREATE TABLE endpoint (
+    id BIGINT NOT NULL DEFAULT nextval('endpoint_hit_id_seq'),
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    ip VARCHAR(15) NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+ALTER SEQUENCE endpoint_hit_id_seq OWNED BY endpoint.id;
+
+CREATE TABLE endpoint_default PARTITION OF endpoint DEFAULT;
+
+--changeset pavel:005-partition-endpoint-months dbms:postgresql splitStatements:false
+DO $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', LEAST(COALESCE((SELECT MIN(created) FROM endpoint_unpartitioned), now()), now()));
+    last_month TIMESTAMP := date_trunc('month', now()) + INTERVAL '2 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF endpoint FOR VALUES FROM (%L) TO (%L)',
+                       'endpoint_' || to_char(month_start, 'YYYY_MM'), month_start, month_start + INTERVAL '1 month');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END
+$$;
+
+--changeset pavel:005-partition-endpoint-copy dbms:postgresql
+INSERT INTO endpoint (id, app, uri, ip, created)
+SELECT id, app, uri, ip, created FROM endpoint_unpartitioned;
+
+SELECT setval('endpoint_hit_id_seq', COALESCE((SELECT MAX(id) FROM endpoint), 0) + 1, false);
+
+DROP TABLE endpoint_unpartitioned;
+
+CREATE INDEX idx_endpoint_created_brin ON endpoint USING BRIN (created);
+CREATE INDEX idx_endpoint_uri_created ON endpoint (uri, created);
+
+--changeset pavel:005-endpoint-indexes dbms:h2
+CREATE INDEX idx_endpoint_uri_created ON endpoint (uri, created);
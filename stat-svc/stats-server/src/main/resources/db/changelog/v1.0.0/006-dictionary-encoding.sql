@@ -0,0 +1,168 @@
+--liquibase formatted sql
+
+--changeset pavel:006-dictionaries
+CREATE TABLE app_dictionary (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE uri_dictionary (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    uri VARCHAR(255) NOT NULL UNIQUE
+);
+
+INSERT INTO app_dictionary (name)
+SELECT app FROM endpoint
+UNION
+SELECT app FROM endpoint_stats_minute;
+
+INSERT INTO uri_dictionary (uri)
+SELECT uri FROM endpoint
+UNION
+SELECT uri FROM endpoint_stats_minute;
+
+--changeset pavel:006-endpoint-ids
+DROP INDEX idx_endpoint_uri_created;
+
+ALTER TABLE endpoint ADD COLUMN app_id INT;
+ALTER TABLE endpoint ADD COLUMN uri_id BIGINT;
+
+UPDATE endpoint SET
+    app_id = (SELECT d.id FROM app_dictionary d WHERE d.name = endpoint.app),
+    uri_id = (SELECT d.id FROM uri_dictionary d WHERE d.uri = endpoint.uri);
+
+ALTER TABLE endpoint ALTER COLUMN app_id SET NOT NULL;
+ALTER TABLE endpoint ALTER COLUMN uri_id SET NOT NULL;
+ALTER TABLE endpoint DROP COLUMN app;
+ALTER TABLE endpoint DROP COLUMN uri;
+
+CREATE INDEX idx_endpoint_uri_created ON endpoint (uri_id, created);
+
+--changeset pavel:006-endpoint-binary-ip dbms:postgresql
+ALTER TABLE endpoint ADD COLUMN ip_bin BYTEA;
+
+UPDATE endpoint SET ip_bin = CASE
+    WHEN ip ~ '^(25[0-5]|2[0-4][0-9]|1[0-9][0-9]|[1-9]?[0-9])(\.(25[0-5]|2[0-4][0-9]|1[0-9][0-9]|[1-9]?[0-9])){3}$'
+        THEN decode('00000000000000000000ffff'
+                    || lpad(to_hex(split_part(ip, '.', 1)::int), 2, '0')
+                    || lpad(to_hex(split_part(ip, '.', 2)::int), 2, '0')
+                    || lpad(to_hex(split_part(ip, '.', 3)::int), 2, '0')
+                    || lpad(to_hex(split_part(ip, '.', 4)::int), 2, '0'), 'hex')
+    ELSE substring(sha256(convert_to(ip, 'UTF8')) FROM 1 FOR 8)
+END;
+
+ALTER TABLE endpoint DROP COLUMN ip;
+ALTER TABLE endpoint RENAME COLUMN ip_bin TO ip;
+ALTER TABLE endpoint ALTER COLUMN ip SET NOT NULL;
+
+--changeset pavel:006-endpoint-binary-ip-h2 dbms:h2
+ALTER TABLE endpoint ADD COLUMN ip_bin VARBINARY(16);
+
+UPDATE endpoint SET ip_bin = CASE
+    WHEN REGEXP_LIKE(ip, '^(25[0-5]|2[0-4][0-9]|1[0-9][0-9]|[1-9]?[0-9])(\.(25[0-5]|2[0-4][0-9]|1[0-9][0-9]|[1-9]?[0-9])){3}$')
+        THEN X'00000000000000000000FFFF' || SUBSTRING(CAST(
+            CAST(REGEXP_REPLACE(ip, '^(\d+)\.(\d+)\.(\d+)\.(\d+)$', '$1') AS BIGINT) * 16777216
+            + CAST(REGEXP_REPLACE(ip, '^(\d+)\.(\d+)\.(\d+)\.(\d+)$', '$2') AS BIGINT) * 65536
+            + CAST(REGEXP_REPLACE(ip, '^(\d+)\.(\d+)\.(\d+)\.(\d+)$', '$3') AS BIGINT) * 256
+            + CAST(REGEXP_REPLACE(ip, '^(\d+)\.(\d+)\.(\d+)\.(\d+)$', '$4') AS BIGINT) AS BINARY(8)) FROM 5 FOR 4)
+    ELSE SUBSTRING(HASH('SHA-256', CAST(ip AS VARBINARY)) FROM 1 FOR 8)
+END;
+
+ALTER TABLE endpoint DROP COLUMN ip;
+ALTER TABLE endpoint ALTER COLUMN ip_bin RENAME TO ip;
+ALTER TABLE endpoint ALTER COLUMN ip SET NOT NULL;
+
+--changeset pavel:006-rollup-ids
+CREATE TABLE endpoint_stats_minute_ids (
+    uri_id BIGINT NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INT NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+INSERT INTO endpoint_stats_minute_ids (uri_id, bucket, app_id, hits)
+SELECT u.id, r.bucket, a.id, r.hits
+FROM endpoint_stats_minute r
+JOIN uri_dictionary u ON u.uri = r.uri
+JOIN app_dictionary a ON a.name = r.app;
+DROP TABLE endpoint_stats_minute;
+ALTER TABLE endpoint_stats_minute_ids RENAME TO endpoint_stats_minute;
+CREATE INDEX idx_endpoint_stats_minute_bucket ON endpoint_stats_minute (bucket);
+
+CREATE TABLE endpoint_stats_hour_ids (
+    uri_id BIGINT NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INT NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+INSERT INTO endpoint_stats_hour_ids (uri_id, bucket, app_id, hits)
+SELECT u.id, r.bucket, a.id, r.hits
+FROM endpoint_stats_hour r
+JOIN uri_dictionary u ON u.uri = r.uri
+JOIN app_dictionary a ON a.name = r.app;
+DROP TABLE endpoint_stats_hour;
+ALTER TABLE endpoint_stats_hour_ids RENAME TO endpoint_stats_hour;
+CREATE INDEX idx_endpoint_stats_hour_bucket ON endpoint_stats_hour (bucket);
+
+CREATE TABLE endpoint_stats_day_ids (
+    uri_id BIGINT NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INT NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+INSERT INTO endpoint_stats_day_ids (uri_id, bucket, app_id, hits)
+SELECT u.id, r.bucket, a.id, r.hits
+FROM endpoint_stats_day r
+JOIN uri_dictionary u ON u.uri = r.uri
+JOIN app_dictionary a ON a.name = r.app;
+DROP TABLE endpoint_stats_day;
+ALTER TABLE endpoint_stats_day_ids RENAME TO endpoint_stats_day;
+CREATE INDEX idx_endpoint_stats_day_bucket ON endpoint_stats_day (bucket);
+
+--changeset pavel:006-sketch-ids dbms:postgresql
+DROP TABLE endpoint_sketch_hour;
+CREATE TABLE endpoint_sketch_hour (
+    uri_id BIGINT NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INT NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+CREATE INDEX idx_endpoint_sketch_hour_bucket ON endpoint_sketch_hour (bucket);
+
+DROP TABLE endpoint_sketch_day;
+CREATE TABLE endpoint_sketch_day (
+    uri_id BIGINT NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INT NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+CREATE INDEX idx_endpoint_sketch_day_bucket ON endpoint_sketch_day (bucket);
+
+UPDATE stats_maintenance SET completed_at = NULL WHERE task = 'sketch-backfill';
+
+--changeset pavel:006-sketch-ids-h2 dbms:h2
+DROP TABLE endpoint_sketch_hour;
+CREATE TABLE endpoint_sketch_hour (
+    uri_id BIGINT NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INT NOT NULL,
+    registers VARBINARY(4096) NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+CREATE INDEX idx_endpoint_sketch_hour_bucket ON endpoint_sketch_hour (bucket);
+
+DROP TABLE endpoint_sketch_day;
+CREATE TABLE endpoint_sketch_day (
+    uri_id BIGINT NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INT NOT NULL,
+    registers VARBINARY(4096) NOT NULL,
+    PRIMARY KEY (uri_id, bucket, app_id)
+);
+CREATE INDEX idx_endpoint_sketch_day_bucket ON endpoint_sketch_day (bucket);
+
+UPDATE stats_maintenance SET completed_at = NULL WHERE task = 'sketch-backfill';